@@ -0,0 +1,57 @@
+package net.nlacombe.moirai.benchmark;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventParticipation;
+import net.nlacombe.moirai.googlecalendar.GoogleEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class EventBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int eventCount;
+
+    private List<Event> events;
+    private List<Event> equalEvents;
+    private List<GoogleEvent> googleEvents;
+    private String[] partstatCodes;
+
+    @Setup
+    public void setUp() {
+        events = SyntheticFeeds.createEvents(eventCount);
+        equalEvents = SyntheticFeeds.createEvents(eventCount);
+        googleEvents = SyntheticFeeds.createGoogleEvents(eventCount, 1);
+        partstatCodes = SyntheticFeeds.getPartstatCodes();
+    }
+
+    @Benchmark
+    public void eventEquals(Blackhole blackhole) {
+        for (var i = 0; i < events.size(); i++)
+            blackhole.consume(events.get(i).equals(equalEvents.get(i)));
+    }
+
+    @Benchmark
+    public void eventHashCode(Blackhole blackhole) {
+        for (var event : events)
+            blackhole.consume(event.hashCode());
+    }
+
+    @Benchmark
+    public void mergeIntoGoogleEvent(Blackhole blackhole) {
+        for (var i = 0; i < events.size(); i++)
+            blackhole.consume(googleEvents.get(i).withContentOf(events.get(i)));
+    }
+
+    @Benchmark
+    public void participationFromIcalCode(Blackhole blackhole) {
+        for (var i = 0; i < eventCount; i++)
+            blackhole.consume(EventParticipation.fromIcalCode(partstatCodes[i % partstatCodes.length]));
+    }
+}
@@ -0,0 +1,42 @@
+package net.nlacombe.moirai.benchmark;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.googlecalendar.GoogleEvent;
+import net.nlacombe.moirai.sync.EventDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class EventDiffBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int eventCount;
+
+    @Param({"0.0", "0.1"})
+    private double changedRatio;
+
+    private List<Event> sourceEvents;
+    private List<GoogleEvent> targetEvents;
+
+    @Setup
+    public void setUp() {
+        sourceEvents = SyntheticFeeds.createEvents(eventCount);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpTargetEvents() {
+        targetEvents = SyntheticFeeds.createGoogleEvents(eventCount, changedRatio);
+    }
+
+    @Benchmark
+    public EventDiff compute() {
+        return EventDiff.compute(sourceEvents, Collections.emptySet(), targetEvents.stream());
+    }
+}
@@ -0,0 +1,58 @@
+package net.nlacombe.moirai.benchmark;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventParticipation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class Ical4jReader {
+
+    static List<Event> read(byte[] content, ZoneId timeZone) {
+        var calendar = getCalendar(new ByteArrayInputStream(content));
+
+        return calendar.getComponents().stream()
+                .filter(component -> component instanceof VEvent)
+                .map(component -> (VEvent) component)
+                .map(icalEvent -> toEvent(timeZone, icalEvent))
+                .collect(Collectors.toList());
+    }
+
+    private static Event toEvent(ZoneId timeZone, VEvent icalEvent) {
+        var icalPartstatCode = icalEvent.getProperty("PARTSTAT").getValue();
+
+        var recurrenceId = icalEvent.getRecurrenceId() != null ? icalEvent.getRecurrenceId().getDate().toInstant().atZone(timeZone) : null;
+        var recurrence = Stream.of(Property.RRULE, Property.RDATE, Property.EXDATE, Property.EXRULE)
+                .flatMap(propertyName -> icalEvent.getProperties(propertyName).stream())
+                .map(property -> property.toString().trim())
+                .collect(Collectors.toList());
+
+        return new Event(icalEvent.getUid().getValue(),
+                icalEvent.getSummary().getValue(),
+                icalEvent.getDescription().getValue(),
+                icalEvent.getLocation() != null ? icalEvent.getLocation().getValue() : null,
+                icalEvent.getStartDate().getDate().toInstant().atZone(timeZone),
+                icalEvent.getEndDate().getDate().toInstant().atZone(timeZone),
+                EventParticipation.fromIcalCode(icalPartstatCode),
+                recurrenceId == null ? recurrence : null,
+                recurrenceId);
+    }
+
+    private static Calendar getCalendar(InputStream icalInputStream) {
+        try {
+            return new CalendarBuilder().build(icalInputStream);
+        } catch (IOException | ParserException e) {
+            throw new RuntimeException("Error reading or parsing calendar from ICal URL (must be an URL to an ICS file)", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.nlacombe.moirai.benchmark;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.TimeWindow;
+import net.nlacombe.moirai.ical.IcalReader;
+import net.nlacombe.moirai.ical.ParsedIcalFeed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+public class IcalReaderBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int eventCount;
+
+    private static final String FEED_URL = "https://benchmark.moirai/feed.ics";
+
+    private byte[] feedContent;
+    private ParsedIcalFeed parsedFeed;
+    private TimeWindow timeWindow;
+
+    @Setup
+    public void setUp() {
+        feedContent = SyntheticFeeds.createFeedContent(eventCount);
+        parsedFeed = IcalReader.parse(FEED_URL, new ByteArrayInputStream(feedContent));
+        timeWindow = TimeWindow.around(Instant.now(), Duration.ZERO, Duration.ofDays(3650 * 10));
+    }
+
+    @Benchmark
+    public List<Event> readWithIcal4j() {
+        return Ical4jReader.read(feedContent, SyntheticFeeds.TIME_ZONE);
+    }
+
+    @Benchmark
+    public List<Event> parseAndStream(Blackhole blackhole) {
+        return IcalReader.parse(FEED_URL, new ByteArrayInputStream(feedContent))
+                .stream("", SyntheticFeeds.TIME_ZONE, timeWindow, blackhole::consume)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Event> streamParsedFeed(Blackhole blackhole) {
+        return parsedFeed.stream("", SyntheticFeeds.TIME_ZONE, timeWindow, blackhole::consume).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package net.nlacombe.moirai.benchmark;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventFingerprint;
+import net.nlacombe.moirai.domain.EventParticipation;
+import net.nlacombe.moirai.googlecalendar.GoogleEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+class SyntheticFeeds {
+
+    static final ZoneId TIME_ZONE = ZoneId.of("America/Montreal");
+
+    private static final DateTimeFormatter ICAL_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final ZonedDateTime FIRST_EVENT_START = ZonedDateTime.now(TIME_ZONE).plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+    private static final String[] PARTSTAT_CODES = {"ACCEPTED", "TENTATIVE", "NEEDS-ACTION", "DECLINED"};
+
+    static byte[] createFeedContent(int eventCount) {
+        var ics = new StringBuilder(eventCount * 400);
+        ics.append("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//moirai//benchmark//EN\r\n");
+
+        for (var i = 0; i < eventCount; i++) {
+            var start = getStart(i).withZoneSameInstant(ZoneId.of("UTC"));
+
+            ics.append("BEGIN:VEVENT\r\n")
+                    .append("UID:event-").append(i).append("@benchmark.moirai\r\n")
+                    .append("DTSTAMP:").append(ICAL_DATE_TIME_FORMATTER.format(FIRST_EVENT_START.withZoneSameInstant(ZoneId.of("UTC")))).append("\r\n")
+                    .append("DTSTART:").append(ICAL_DATE_TIME_FORMATTER.format(start)).append("\r\n")
+                    .append("DTEND:").append(ICAL_DATE_TIME_FORMATTER.format(start.plusHours(1))).append("\r\n")
+                    .append("SUMMARY:Benchmark event ").append(i).append("\r\n")
+                    .append("DESCRIPTION:Synthetic event number ").append(i).append(" with a description long enough to be\r\n")
+                    .append("  folded over two content lines\\, like real feeds do.\r\n")
+                    .append("LOCATION:Room ").append(i % 20).append("\r\n")
+                    .append("PARTSTAT:").append(PARTSTAT_CODES[i % PARTSTAT_CODES.length]).append("\r\n")
+                    .append("END:VEVENT\r\n");
+        }
+
+        ics.append("END:VCALENDAR\r\n");
+
+        return ics.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static List<Event> createEvents(int eventCount) {
+        var events = new ArrayList<Event>(eventCount);
+
+        for (var i = 0; i < eventCount; i++)
+            events.add(createEvent(i, ""));
+
+        return events;
+    }
+
+    static List<GoogleEvent> createGoogleEvents(int eventCount, double changedRatio) {
+        var googleEvents = new ArrayList<GoogleEvent>(eventCount);
+        var changedEventInterval = changedRatio > 0 ? (int) Math.round(1 / changedRatio) : 0;
+
+        for (var i = 0; i < eventCount; i++) {
+            var changed = changedEventInterval > 0 && i % changedEventInterval == 0;
+            var content = createEvent(i, changed ? " (changed)" : "");
+
+            googleEvents.add(new GoogleEvent("google" + i, false, EventFingerprint.compute(content), content));
+        }
+
+        return googleEvents;
+    }
+
+    static String[] getPartstatCodes() {
+        return PARTSTAT_CODES.clone();
+    }
+
+    private static Event createEvent(int index, String nameSuffix) {
+        var start = getStart(index);
+
+        return new Event("event-" + index + "@benchmark.moirai",
+                "Benchmark event " + index + nameSuffix,
+                "Synthetic event number " + index + " with a description long enough to be folded over two content lines, like real feeds do.",
+                "Room " + index % 20,
+                start,
+                start.plusHours(1),
+                EventParticipation.fromIcalCode(PARTSTAT_CODES[index % PARTSTAT_CODES.length]));
+    }
+
+    private static ZonedDateTime getStart(int index) {
+        return FIRST_EVENT_START.plusHours(index * 3L);
+    }
+}
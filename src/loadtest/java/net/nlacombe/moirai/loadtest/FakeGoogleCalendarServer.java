@@ -0,0 +1,598 @@
+package net.nlacombe.moirai.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+class FakeGoogleCalendarServer implements AutoCloseable {
+
+    static final String PRIMARY_CALENDAR_ID = "loadtest@gmail.com";
+
+    private static final String API_PATH = "/calendar/v3/";
+    private static final String BATCH_PATH = "/batch/calendar/v3";
+    private static final String SYNC_TOKEN_PREFIX = "sync-";
+    private static final String PRIMARY_CALENDAR_TIMEZONE = "America/Montreal";
+    private static final int DEFAULT_PAGE_SIZE = 250;
+
+    private ObjectMapper objectMapper;
+    private HttpServer httpServer;
+    private ExecutorService requestExecutor;
+    private Map<String, FakeCalendar> calendarsById;
+    private Map<String, LongAdder> callCountsByMethod;
+    private AtomicLong idSequence;
+    private volatile long latencyMillis;
+    private volatile double throttleRate;
+    private volatile double serverErrorRate;
+
+    FakeGoogleCalendarServer() throws IOException {
+        this.objectMapper = new ObjectMapper();
+        this.calendarsById = new ConcurrentHashMap<>();
+        this.callCountsByMethod = new ConcurrentHashMap<>();
+        this.idSequence = new AtomicLong();
+        this.requestExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("fake-google-calendar-"));
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.httpServer.createContext("/", this::handle);
+        this.httpServer.setExecutor(requestExecutor);
+        this.httpServer.start();
+    }
+
+    String getRootUrl() {
+        return "http://" + httpServer.getAddress().getHostString() + ":" + httpServer.getAddress().getPort() + "/";
+    }
+
+    void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    void setServerErrorRate(double serverErrorRate) {
+        this.serverErrorRate = serverErrorRate;
+    }
+
+    void expireSyncTokens() {
+        calendarsById.values().forEach(calendar -> {
+            synchronized (calendar) {
+                calendar.minValidSyncVersion = calendar.version;
+            }
+        });
+    }
+
+    Map<String, Long> getCallCounts() {
+        return callCountsByMethod.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum(), (a, b) -> a, TreeMap::new));
+    }
+
+    int countActiveEvents(String calendarName) {
+        return getActiveEventsByIcalUid(calendarName).size();
+    }
+
+    Map<String, ObjectNode> getActiveEventsByIcalUid(String calendarName) {
+        var calendar = calendarsById.values().stream()
+                .filter(fakeCalendar -> calendarName.equals(fakeCalendar.summary))
+                .findAny()
+                .orElse(null);
+
+        if (calendar == null)
+            return Map.of();
+
+        synchronized (calendar) {
+            return calendar.eventsById.values().stream()
+                    .filter(event -> !isCancelled(event))
+                    .map(event -> event.json.deepCopy())
+                    .collect(Collectors.toMap(event -> event.path("iCalUID").asText(), event -> event, (first, second) -> first));
+        }
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        requestExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            var body = readBody(exchange);
+            var uri = exchange.getRequestURI();
+            FakeResponse response;
+
+            sleepLatency();
+
+            if (uri.getPath().equals(BATCH_PATH)) {
+                countCall("batch");
+                response = getInjectedFault();
+
+                if (response == null)
+                    response = handleBatch(exchange.getRequestHeaders().getFirst("Content-Type"), body);
+            } else {
+                response = handleRequest(exchange.getRequestMethod(), uri, body, false);
+            }
+
+            send(exchange, response);
+        } catch (RuntimeException e) {
+            send(exchange, createErrorResponse(500, "backendError", e.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream bodyInputStream = exchange.getRequestBody();
+
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+            bodyInputStream = new GZIPInputStream(bodyInputStream);
+
+        return bodyInputStream.readAllBytes();
+    }
+
+    private FakeResponse handleRequest(String httpMethod, URI uri, byte[] body, boolean batchItem) {
+        if (!uri.getRawPath().startsWith(API_PATH))
+            return createErrorResponse(404, "notFound", "Unknown path " + uri.getRawPath());
+
+        var pathSegments = Arrays.stream(uri.getRawPath().substring(API_PATH.length()).split("/"))
+                .map(segment -> URLDecoder.decode(segment, StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+        var methodName = getMethodName(httpMethod, pathSegments);
+
+        countCall(batchItem ? "batch/" + methodName : methodName);
+
+        var fault = getInjectedFault();
+
+        if (fault != null)
+            return fault;
+
+        var queryParameters = getQueryParameters(uri);
+
+        switch (methodName) {
+            case "calendarList.get":
+                return createJsonResponse(200, toCalendarListEntry(PRIMARY_CALENDAR_ID, PRIMARY_CALENDAR_ID, PRIMARY_CALENDAR_TIMEZONE));
+            case "calendarList.list":
+                return listCalendars();
+            case "calendars.insert":
+                return insertCalendar(readJson(body));
+            case "events.list":
+                return listEvents(pathSegments.get(1), queryParameters);
+            case "events.insert":
+                return insertEvent(pathSegments.get(1), readJson(body));
+            case "events.update":
+                return updateEvent(pathSegments.get(1), pathSegments.get(3), readJson(body));
+            case "events.delete":
+                return deleteEvent(pathSegments.get(1), pathSegments.get(3));
+            default:
+                return createErrorResponse(404, "notFound", "Unsupported method " + httpMethod + " " + uri.getRawPath());
+        }
+    }
+
+    private static String getMethodName(String httpMethod, List<String> pathSegments) {
+        var path = String.join("/", pathSegments);
+
+        if (path.equals("users/me/calendarList/primary") && httpMethod.equals("GET"))
+            return "calendarList.get";
+
+        if (path.equals("users/me/calendarList") && httpMethod.equals("GET"))
+            return "calendarList.list";
+
+        if (path.equals("calendars") && httpMethod.equals("POST"))
+            return "calendars.insert";
+
+        if (pathSegments.size() == 3 && pathSegments.get(0).equals("calendars") && pathSegments.get(2).equals("events"))
+            return httpMethod.equals("POST") ? "events.insert" : "events.list";
+
+        if (pathSegments.size() == 4 && pathSegments.get(0).equals("calendars") && pathSegments.get(2).equals("events")) {
+            if (httpMethod.equals("PUT"))
+                return "events.update";
+
+            if (httpMethod.equals("DELETE"))
+                return "events.delete";
+        }
+
+        return "unknown";
+    }
+
+    private FakeResponse listCalendars() {
+        var items = objectMapper.createArrayNode();
+        items.add(toCalendarListEntry(PRIMARY_CALENDAR_ID, PRIMARY_CALENDAR_ID, PRIMARY_CALENDAR_TIMEZONE));
+        calendarsById.values().forEach(calendar -> items.add(toCalendarListEntry(calendar.id, calendar.summary, calendar.timeZone)));
+
+        var response = objectMapper.createObjectNode();
+        response.put("kind", "calendar#calendarList");
+        response.set("items", items);
+
+        return createJsonResponse(200, response);
+    }
+
+    private FakeResponse insertCalendar(ObjectNode requestCalendar) {
+        var calendar = new FakeCalendar();
+        calendar.id = "cal" + idSequence.incrementAndGet() + "@group.calendar.google.com";
+        calendar.summary = requestCalendar.path("summary").asText();
+        calendar.timeZone = requestCalendar.path("timeZone").asText(PRIMARY_CALENDAR_TIMEZONE);
+        calendarsById.put(calendar.id, calendar);
+
+        var response = objectMapper.createObjectNode();
+        response.put("kind", "calendar#calendar");
+        response.put("id", calendar.id);
+        response.put("summary", calendar.summary);
+        response.put("timeZone", calendar.timeZone);
+
+        return createJsonResponse(200, response);
+    }
+
+    private FakeResponse listEvents(String calendarId, Map<String, String> queryParameters) {
+        var calendar = calendarsById.get(calendarId);
+
+        if (calendar == null)
+            return createErrorResponse(404, "notFound", "Calendar not found.");
+
+        var syncToken = queryParameters.get("syncToken");
+        var showDeleted = Boolean.parseBoolean(queryParameters.get("showDeleted"));
+        var pageSize = queryParameters.containsKey("maxResults") ? Integer.parseInt(queryParameters.get("maxResults")) : DEFAULT_PAGE_SIZE;
+        var pageStart = queryParameters.containsKey("pageToken") ? Integer.parseInt(queryParameters.get("pageToken")) : 0;
+        var timeMin = queryParameters.containsKey("timeMin") ? OffsetDateTime.parse(queryParameters.get("timeMin")).toInstant() : null;
+        var timeMax = queryParameters.containsKey("timeMax") ? OffsetDateTime.parse(queryParameters.get("timeMax")).toInstant() : null;
+
+        if (syncToken != null && (timeMin != null || timeMax != null))
+            return createErrorResponse(400, "invalid", "Sync token cannot be used with timeMin or timeMax.");
+
+        synchronized (calendar) {
+            var sinceVersion = -1L;
+
+            if (syncToken != null) {
+                sinceVersion = getSyncTokenVersion(syncToken);
+
+                if (sinceVersion < calendar.minValidSyncVersion)
+                    return createErrorResponse(410, "fullSyncRequired", "Sync token is no longer valid, a full sync is required.");
+            }
+
+            var changedSinceVersion = sinceVersion;
+            var matchingEvents = calendar.eventsById.values().stream()
+                    .filter(event -> syncToken != null ? event.version > changedSinceVersion : showDeleted || !isCancelled(event))
+                    .filter(event -> isInTimeRange(event, timeMin, timeMax))
+                    .map(event -> event.json)
+                    .collect(Collectors.toList());
+            var pageEnd = Math.min(pageStart + pageSize, matchingEvents.size());
+
+            var items = objectMapper.createArrayNode();
+            matchingEvents.subList(Math.min(pageStart, pageEnd), pageEnd).forEach(items::add);
+
+            var response = objectMapper.createObjectNode();
+            response.put("kind", "calendar#events");
+            response.put("summary", calendar.summary);
+            response.put("timeZone", calendar.timeZone);
+            response.set("items", items);
+
+            if (pageEnd < matchingEvents.size())
+                response.put("nextPageToken", String.valueOf(pageEnd));
+            else
+                response.put("nextSyncToken", SYNC_TOKEN_PREFIX + calendar.version);
+
+            return createJsonResponse(200, response);
+        }
+    }
+
+    private FakeResponse insertEvent(String calendarId, ObjectNode event) {
+        var calendar = calendarsById.get(calendarId);
+
+        if (calendar == null)
+            return createErrorResponse(404, "notFound", "Calendar not found.");
+
+        var eventId = "evt" + idSequence.incrementAndGet();
+        event.put("id", eventId);
+
+        if (!event.hasNonNull("iCalUID"))
+            event.put("iCalUID", eventId + "@google.com");
+
+        synchronized (calendar) {
+            return createJsonResponse(200, storeEvent(calendar, event));
+        }
+    }
+
+    private FakeResponse updateEvent(String calendarId, String eventId, ObjectNode event) {
+        var calendar = calendarsById.get(calendarId);
+
+        if (calendar == null)
+            return createErrorResponse(404, "notFound", "Calendar not found.");
+
+        synchronized (calendar) {
+            var storedEvent = calendar.eventsById.get(eventId);
+
+            if (storedEvent == null)
+                return createErrorResponse(404, "notFound", "Event not found.");
+
+            event.put("id", eventId);
+            event.put("iCalUID", storedEvent.json.path("iCalUID").asText());
+
+            return createJsonResponse(200, storeEvent(calendar, event));
+        }
+    }
+
+    private FakeResponse deleteEvent(String calendarId, String eventId) {
+        var calendar = calendarsById.get(calendarId);
+
+        if (calendar == null)
+            return createErrorResponse(404, "notFound", "Calendar not found.");
+
+        synchronized (calendar) {
+            var storedEvent = calendar.eventsById.get(eventId);
+
+            if (storedEvent == null)
+                return createErrorResponse(404, "notFound", "Event not found.");
+
+            if (isCancelled(storedEvent))
+                return createErrorResponse(410, "deleted", "Resource has been deleted.");
+
+            var cancelledEvent = storedEvent.json.deepCopy();
+            cancelledEvent.put("status", "cancelled");
+            storeEvent(calendar, cancelledEvent);
+
+            return new FakeResponse(204, null, new byte[0]);
+        }
+    }
+
+    private ObjectNode storeEvent(FakeCalendar calendar, ObjectNode event) {
+        if (!event.hasNonNull("status"))
+            event.put("status", "confirmed");
+
+        var storedEvent = new StoredEvent();
+        storedEvent.version = ++calendar.version;
+        storedEvent.json = event;
+
+        event.put("kind", "calendar#event");
+        event.put("etag", "\"" + storedEvent.version + "\"");
+        event.put("updated", Instant.now().toString());
+
+        calendar.eventsById.remove(event.get("id").asText());
+        calendar.eventsById.put(event.get("id").asText(), storedEvent);
+
+        return event;
+    }
+
+    private FakeResponse handleBatch(String contentType, byte[] body) {
+        var boundary = getBoundary(contentType);
+        var responseBoundary = "batch_" + UUID.randomUUID().toString().replace("-", "");
+        var responseBody = new StringBuilder();
+        var partIndex = 0;
+
+        for (var part : new String(body, StandardCharsets.UTF_8).replace("\r\n", "\n").split("--" + boundary)) {
+            var partContentStart = part.indexOf("\n\n");
+
+            if (part.startsWith("--") || partContentStart < 0)
+                continue;
+
+            var itemRequest = part.substring(partContentStart + 2);
+            var itemHeadersEnd = itemRequest.indexOf("\n\n");
+            var itemHead = (itemHeadersEnd < 0 ? itemRequest : itemRequest.substring(0, itemHeadersEnd)).trim().split("\n");
+            var itemBody = itemHeadersEnd < 0 ? "" : itemRequest.substring(itemHeadersEnd + 2).trim();
+            var requestLine = itemHead[0].split(" ");
+
+            var itemResponse = handleRequest(requestLine[0], URI.create(requestLine[1]), itemBody.getBytes(StandardCharsets.UTF_8), true);
+
+            responseBody.append("--").append(responseBoundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: response-").append(++partIndex).append("\r\n\r\n")
+                    .append("HTTP/1.1 ").append(itemResponse.statusCode).append(" ").append(getReasonPhrase(itemResponse.statusCode)).append("\r\n");
+
+            if (itemResponse.contentType != null)
+                responseBody.append("Content-Type: ").append(itemResponse.contentType).append("\r\n");
+
+            responseBody.append("Content-Length: ").append(itemResponse.body.length).append("\r\n\r\n")
+                    .append(new String(itemResponse.body, StandardCharsets.UTF_8)).append("\r\n");
+        }
+
+        responseBody.append("--").append(responseBoundary).append("--\r\n");
+
+        return new FakeResponse(200, "multipart/mixed; boundary=" + responseBoundary, responseBody.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FakeResponse getInjectedFault() {
+        var random = ThreadLocalRandom.current().nextDouble();
+
+        if (random < throttleRate)
+            return createErrorResponse(429, "rateLimitExceeded", "Rate Limit Exceeded");
+
+        if (random < throttleRate + serverErrorRate)
+            return createErrorResponse(503, "backendError", "Backend Error");
+
+        return null;
+    }
+
+    private FakeResponse createErrorResponse(int statusCode, String reason, String message) {
+        var errorItem = objectMapper.createObjectNode();
+        errorItem.put("domain", "global");
+        errorItem.put("reason", reason);
+        errorItem.put("message", message);
+
+        var error = objectMapper.createObjectNode();
+        error.set("errors", objectMapper.createArrayNode().add(errorItem));
+        error.put("code", statusCode);
+        error.put("message", message);
+
+        var response = objectMapper.createObjectNode();
+        response.set("error", error);
+
+        return createJsonResponse(statusCode, response);
+    }
+
+    private FakeResponse createJsonResponse(int statusCode, ObjectNode json) {
+        try {
+            return new FakeResponse(statusCode, "application/json; charset=UTF-8", objectMapper.writeValueAsBytes(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectNode toCalendarListEntry(String id, String summary, String timeZone) {
+        var calendarListEntry = objectMapper.createObjectNode();
+        calendarListEntry.put("kind", "calendar#calendarListEntry");
+        calendarListEntry.put("id", id);
+        calendarListEntry.put("summary", summary);
+        calendarListEntry.put("timeZone", timeZone);
+        calendarListEntry.put("accessRole", "owner");
+
+        return calendarListEntry;
+    }
+
+    private ObjectNode readJson(byte[] body) {
+        try {
+            return (ObjectNode) objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void send(HttpExchange exchange, FakeResponse response) throws IOException {
+        if (response.contentType != null)
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+
+        exchange.sendResponseHeaders(response.statusCode, response.body.length == 0 ? -1 : response.body.length);
+
+        if (response.body.length > 0)
+            exchange.getResponseBody().write(response.body);
+    }
+
+    private void sleepLatency() {
+        if (latencyMillis <= 0)
+            return;
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void countCall(String methodName) {
+        callCountsByMethod.computeIfAbsent(methodName, key -> new LongAdder()).increment();
+    }
+
+    private static long getSyncTokenVersion(String syncToken) {
+        try {
+            return syncToken.startsWith(SYNC_TOKEN_PREFIX) ? Long.parseLong(syncToken.substring(SYNC_TOKEN_PREFIX.length())) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isInTimeRange(StoredEvent event, Instant timeMin, Instant timeMax) {
+        var start = event.json.path("start").path("dateTime");
+        var end = event.json.path("end").path("dateTime");
+
+        if (start.isMissingNode() || end.isMissingNode())
+            return true;
+
+        return (timeMin == null || OffsetDateTime.parse(end.asText()).toInstant().isAfter(timeMin)) &&
+                (timeMax == null || OffsetDateTime.parse(start.asText()).toInstant().isBefore(timeMax));
+    }
+
+    private static boolean isCancelled(StoredEvent event) {
+        return "cancelled".equals(event.json.path("status").asText());
+    }
+
+    private static String getBoundary(String contentType) {
+        for (var parameter : contentType.split(";")) {
+            var trimmedParameter = parameter.trim();
+
+            if (trimmedParameter.startsWith("boundary="))
+                return trimmedParameter.substring("boundary=".length()).replace("\"", "");
+        }
+
+        throw new IllegalArgumentException("No multipart boundary in content type: " + contentType);
+    }
+
+    private static Map<String, String> getQueryParameters(URI uri) {
+        var queryParameters = new HashMap<String, String>();
+
+        if (uri.getRawQuery() == null)
+            return queryParameters;
+
+        for (var parameter : uri.getRawQuery().split("&")) {
+            var equalsIndex = parameter.indexOf('=');
+
+            if (equalsIndex > 0)
+                queryParameters.put(URLDecoder.decode(parameter.substring(0, equalsIndex), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equalsIndex + 1), StandardCharsets.UTF_8));
+        }
+
+        return queryParameters;
+    }
+
+    private static String getReasonPhrase(int statusCode) {
+        switch (statusCode) {
+            case 200:
+                return "OK";
+            case 204:
+                return "No Content";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 410:
+                return "Gone";
+            case 429:
+                return "Too Many Requests";
+            case 503:
+                return "Service Unavailable";
+            default:
+                return "Error";
+        }
+    }
+
+    private static class FakeCalendar {
+
+        private String id;
+        private String summary;
+        private String timeZone;
+        private long version;
+        private long minValidSyncVersion;
+        private Map<String, StoredEvent> eventsById = new LinkedHashMap<>();
+    }
+
+    private static class StoredEvent {
+
+        private long version;
+        private ObjectNode json;
+    }
+
+    private static class FakeResponse {
+
+        private int statusCode;
+        private String contentType;
+        private byte[] body;
+
+        FakeResponse(int statusCode, String contentType, byte[] body) {
+            this.statusCode = statusCode;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
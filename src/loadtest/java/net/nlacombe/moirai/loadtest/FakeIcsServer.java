@@ -0,0 +1,70 @@
+package net.nlacombe.moirai.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+class FakeIcsServer implements AutoCloseable {
+
+    private static final String FEED_PATH = "/feed.ics";
+
+    private HttpServer httpServer;
+    private LongAdder requestCount;
+    private volatile byte[] content;
+    private volatile String etag;
+
+    FakeIcsServer() throws IOException {
+        this.requestCount = new LongAdder();
+        this.content = new byte[0];
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.httpServer.createContext(FEED_PATH, this::handle);
+        this.httpServer.start();
+    }
+
+    String getFeedUrl() {
+        return "http://" + httpServer.getAddress().getHostString() + ":" + httpServer.getAddress().getPort() + FEED_PATH;
+    }
+
+    void setContent(String ics) {
+        var newContent = ics.getBytes(StandardCharsets.UTF_8);
+
+        content = newContent;
+        etag = "\"" + Integer.toHexString(Arrays.hashCode(newContent)) + "\"";
+    }
+
+    long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.increment();
+            var currentContent = content;
+            var currentEtag = etag;
+
+            exchange.getResponseHeaders().set("ETag", currentEtag);
+
+            if (currentEtag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/calendar; charset=UTF-8");
+            exchange.sendResponseHeaders(200, currentContent.length);
+            exchange.getResponseBody().write(currentContent);
+        } finally {
+            exchange.close();
+        }
+    }
+}
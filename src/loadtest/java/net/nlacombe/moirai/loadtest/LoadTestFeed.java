@@ -0,0 +1,123 @@
+package net.nlacombe.moirai.loadtest;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventParticipation;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+class LoadTestFeed {
+
+    private static final DateTimeFormatter ICAL_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final String[] PARTSTAT_CODES = {"ACCEPTED", "TENTATIVE", "NEEDS-ACTION", "DECLINED"};
+
+    private Random random;
+    private ZonedDateTime firstEventStart;
+    private List<FeedEvent> events;
+    private int nextEventNumber;
+
+    LoadTestFeed(int eventCount, Random random) {
+        this.random = random;
+        this.firstEventStart = ZonedDateTime.now(ZoneOffset.UTC).plusDays(1).withHour(13).withMinute(0).withSecond(0).withNano(0);
+        this.events = new ArrayList<>(eventCount);
+
+        for (var i = 0; i < eventCount; i++)
+            events.add(createEvent());
+    }
+
+    int size() {
+        return events.size();
+    }
+
+    void applyChanges(double changeRatio) {
+        var changeCount = (int) Math.round(events.size() * changeRatio);
+
+        for (var i = 0; i < changeCount; i++) {
+            if (i % 3 != 2 && events.isEmpty())
+                continue;
+
+            switch (i % 3) {
+                case 0:
+                    var event = events.get(random.nextInt(events.size()));
+                    event.summary = "Load test event " + event.number + " (revision " + ++event.revision + ")";
+                    break;
+                case 1:
+                    events.remove(random.nextInt(events.size()));
+                    break;
+                default:
+                    events.add(createEvent());
+            }
+        }
+    }
+
+    Map<String, Event> getEventsByIcalUid() {
+        return events.stream()
+                .map(LoadTestFeed::toEvent)
+                .collect(Collectors.toMap(Event::getIcalUid, event -> event));
+    }
+
+    String toIcs() {
+        var ics = new StringBuilder(events.size() * 400);
+        ics.append("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//moirai//loadtest//EN\r\n");
+
+        for (var event : events) {
+            ics.append("BEGIN:VEVENT\r\n")
+                    .append("UID:").append(getIcalUid(event)).append("\r\n")
+                    .append("DTSTART:").append(ICAL_DATE_TIME_FORMATTER.format(event.start)).append("\r\n")
+                    .append("DTEND:").append(ICAL_DATE_TIME_FORMATTER.format(event.start.plusMinutes(event.durationMinutes))).append("\r\n")
+                    .append("SUMMARY:").append(event.summary).append("\r\n")
+                    .append("DESCRIPTION:").append(getDescription(event)).append("\r\n")
+                    .append("LOCATION:").append(getLocation(event)).append("\r\n")
+                    .append("PARTSTAT:").append(event.partstatCode).append("\r\n")
+                    .append("END:VEVENT\r\n");
+        }
+
+        ics.append("END:VCALENDAR\r\n");
+
+        return ics.toString();
+    }
+
+    private static Event toEvent(FeedEvent event) {
+        return new Event(getIcalUid(event), event.summary, getDescription(event), getLocation(event), event.start,
+                event.start.plusMinutes(event.durationMinutes), EventParticipation.fromIcalCode(event.partstatCode));
+    }
+
+    private static String getIcalUid(FeedEvent event) {
+        return "loadtest-" + event.number + "@moirai";
+    }
+
+    private static String getDescription(FeedEvent event) {
+        return "Generated load test event " + event.number;
+    }
+
+    private static String getLocation(FeedEvent event) {
+        return "Room " + event.number % 20;
+    }
+
+    private FeedEvent createEvent() {
+        var event = new FeedEvent();
+        event.number = nextEventNumber++;
+        event.summary = "Load test event " + event.number;
+        event.start = firstEventStart.plusMinutes(30L * random.nextInt(24 * 2 * 365));
+        event.durationMinutes = 30 + 30 * random.nextInt(4);
+        event.partstatCode = PARTSTAT_CODES[random.nextInt(PARTSTAT_CODES.length)];
+
+        return event;
+    }
+
+    private static class FeedEvent {
+
+        private int number;
+        private int revision;
+        private String summary;
+        private ZonedDateTime start;
+        private int durationMinutes;
+        private String partstatCode;
+    }
+}
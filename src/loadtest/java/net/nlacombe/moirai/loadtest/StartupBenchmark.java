@@ -0,0 +1,151 @@
+package net.nlacombe.moirai.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class StartupBenchmark {
+
+    private static final String TARGET_CALENDAR_NAME = "Moirai startup benchmark";
+    private static final String ACCESS_TOKEN = "startup-access-token";
+    private static final String REFRESH_TOKEN = "startup-refresh-token";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        var appJar = System.getProperty("loadtest.appJar");
+        var appClasspath = System.getProperty("loadtest.appClasspath");
+        var jvmArgs = System.getProperty("loadtest.jvmArgs", "");
+        var runCount = Integer.getInteger("loadtest.runs", 5);
+        var eventCount = Integer.getInteger("loadtest.events", 100);
+        var timeout = Duration.ofSeconds(Long.getLong("loadtest.startupTimeoutSeconds", 120));
+
+        if (appJar == null && appClasspath == null)
+            throw new IllegalArgumentException("Set loadtest.appJar or loadtest.appClasspath to the application to start.");
+
+        try (var calendarServer = new FakeGoogleCalendarServer(); var icsServer = new FakeIcsServer()) {
+            icsServer.setContent(new LoadTestFeed(eventCount, new Random(42)).toIcs());
+
+            var httpClient = HttpClient.newHttpClient();
+            var firstSyncTimes = new ArrayList<Long>();
+
+            logger.info("Measuring " + runCount + " cold starts with JVM arguments [" + jvmArgs + "].");
+
+            for (var run = 1; run <= runCount; run++) {
+                var port = getFreePort();
+                var dataDirectory = Files.createTempDirectory("moirai-startup-benchmark");
+                var command = getCommand(appJar, appClasspath, jvmArgs, port, calendarServer.getRootUrl(), dataDirectory);
+                var syncRequest = getSyncRequest(port, icsServer.getFeedUrl(), timeout);
+
+                var startTime = System.nanoTime();
+                var process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(dataDirectory.resolve("app.log").toFile()).start();
+
+                try {
+                    var response = send(httpClient, syncRequest);
+
+                    while (response == null) {
+                        if (Duration.ofNanos(System.nanoTime() - startTime).compareTo(timeout) > 0 || !process.isAlive())
+                            throw new RuntimeException("Run " + run + " did not start within " + timeout.toSeconds() + " s, see " + dataDirectory.resolve("app.log"));
+
+                        Thread.sleep(POLL_INTERVAL.toMillis());
+                        response = send(httpClient, syncRequest);
+                    }
+
+                    if (response.statusCode() != 200)
+                        throw new RuntimeException("Run " + run + " sync failed with HTTP " + response.statusCode() + ": " + response.body());
+
+                    var firstSyncTime = Duration.ofNanos(System.nanoTime() - startTime);
+                    firstSyncTimes.add(firstSyncTime.toMillis());
+
+                    logger.info("Run " + run + ": timeToFirstSuccessfulSync=" + firstSyncTime.toMillis() + " ms" +
+                            ", targetEvents=" + calendarServer.countActiveEvents(TARGET_CALENDAR_NAME));
+                } finally {
+                    process.destroy();
+                    process.waitFor();
+                }
+            }
+
+            logger.info("timeToFirstSuccessfulSync: " + getSummary(firstSyncTimes));
+        }
+    }
+
+    private static List<String> getCommand(String appJar, String appClasspath, String jvmArgs, int port, String googleCalendarRootUrl,
+                                           Path dataDirectory) {
+
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+        if (!jvmArgs.isBlank())
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+
+        command.add("-Dserver.port=" + port);
+        command.add("-Dmanagement.server.port=0");
+        command.add("-DgoogleCalendar.api.rootUrl=" + googleCalendarRootUrl);
+        command.add("-DgoogleCalendar.eventSnapshot.directory=" + dataDirectory.resolve("event-snapshots"));
+        command.add("-Dsync.state.directory=" + dataDirectory.resolve("sync-state"));
+        command.add("-Dsubscriptions.store.file=" + dataDirectory.resolve("subscriptions.json"));
+        command.add("-Dsubscriptions.scheduler.enabled=false");
+
+        if (appClasspath != null) {
+            command.add("-cp");
+            command.add(appClasspath);
+            command.add("net.nlacombe.moirai.MoiraiWsApplication");
+        } else {
+            command.add("-jar");
+            command.add(appJar);
+        }
+
+        return command;
+    }
+
+    private static HttpRequest getSyncRequest(int port, String feedUrl, Duration timeout) {
+        var body = "{" +
+                "\"sourceCalendarIcalUrl\":\"" + feedUrl + "\"," +
+                "\"googleUserAccessToken\":\"" + ACCESS_TOKEN + "\"," +
+                "\"googleUserRefreshToken\":\"" + REFRESH_TOKEN + "\"," +
+                "\"targetCalendarName\":\"" + TARGET_CALENDAR_NAME + "\"" +
+                "}";
+
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/v1/syncIcalWithGoogleCalendar"))
+                .header("Content-Type", "application/json")
+                .timeout(timeout)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpResponse<String> send(HttpClient httpClient, HttpRequest request) throws IOException, InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (ConnectException e) {
+            return null;
+        }
+    }
+
+    private static int getFreePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String getSummary(List<Long> timesMillis) {
+        var sortedTimes = timesMillis.stream().sorted().mapToLong(Long::longValue).toArray();
+
+        return "min=" + sortedTimes[0] + " ms" +
+                ", median=" + sortedTimes[sortedTimes.length / 2] + " ms" +
+                ", max=" + sortedTimes[sortedTimes.length - 1] + " ms";
+    }
+}
@@ -0,0 +1,202 @@
+package net.nlacombe.moirai.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventFingerprint;
+import net.nlacombe.moirai.googlecalendar.EventSnapshotStore;
+import net.nlacombe.moirai.googlecalendar.GoogleAccountMetadataCache;
+import net.nlacombe.moirai.googlecalendar.GoogleApiCallExecutor;
+import net.nlacombe.moirai.googlecalendar.GoogleCalendarClientFactory;
+import net.nlacombe.moirai.googlecalendar.MutationBatchExecutor;
+import net.nlacombe.moirai.ical.FeedFetcher;
+import net.nlacombe.moirai.ical.FeedValidatorStore;
+import net.nlacombe.moirai.ical.ParsedFeedCache;
+import net.nlacombe.moirai.metrics.SyncMetrics;
+import net.nlacombe.moirai.service.EmailSenderService;
+import net.nlacombe.moirai.service.SyncService;
+import net.nlacombe.moirai.sync.SyncProgress;
+import net.nlacombe.moirai.sync.SyncStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class SyncLoadTest {
+
+    private static final String TARGET_CALENDAR_NAME = "Moirai load test";
+    private static final String TARGET_CALENDAR_TIMEZONE = "America/Montreal";
+    private static final String ACCESS_TOKEN = "loadtest-access-token";
+    private static final String REFRESH_TOKEN = "loadtest-refresh-token";
+    private static final String CONTENT_FINGERPRINT_PROPERTY = "moiraiContentFingerprint";
+    private static final int MAX_LOGGED_MISMATCHES = 10;
+    private static final Logger logger = LoggerFactory.getLogger(SyncLoadTest.class);
+
+    public static void main(String[] args) throws Exception {
+        var eventCount = Integer.getInteger("loadtest.events", 1000);
+        var changeRatio = Double.parseDouble(System.getProperty("loadtest.changeRatio", "0.05"));
+        var runCount = Integer.getInteger("loadtest.runs", 3);
+        var requestsPerSecond = Double.parseDouble(System.getProperty("loadtest.requestsPerSecond", "1000"));
+        var expireSyncTokens = Boolean.getBoolean("loadtest.expireSyncTokens");
+        var seed = Long.getLong("loadtest.seed", 42);
+
+        try (var calendarServer = new FakeGoogleCalendarServer(); var icsServer = new FakeIcsServer()) {
+            calendarServer.setLatencyMillis(Long.getLong("loadtest.latencyMillis", 0));
+            calendarServer.setThrottleRate(Double.parseDouble(System.getProperty("loadtest.throttleRate", "0")));
+            calendarServer.setServerErrorRate(Double.parseDouble(System.getProperty("loadtest.serverErrorRate", "0")));
+
+            var syncService = createSyncService(calendarServer.getRootUrl(), requestsPerSecond);
+            var feed = new LoadTestFeed(eventCount, new Random(seed));
+            var failed = false;
+
+            logger.info("Running " + runCount + " syncs of " + eventCount + " events with a change ratio of " + changeRatio + ".");
+
+            for (var run = 1; run <= runCount; run++) {
+                if (run > 1)
+                    feed.applyChanges(changeRatio);
+
+                if (run > 1 && expireSyncTokens)
+                    calendarServer.expireSyncTokens();
+
+                icsServer.setContent(feed.toIcs());
+
+                var callCountsBefore = calendarServer.getCallCounts();
+                var progress = new SyncProgress();
+                resetPeakHeapUsage();
+                var startTime = System.nanoTime();
+
+                try {
+                    syncService.sync(List.of(icsServer.getFeedUrl()), ACCESS_TOKEN, REFRESH_TOKEN, TARGET_CALENDAR_NAME, progress);
+                } catch (RuntimeException e) {
+                    logger.error("Sync run " + run + " failed.", e);
+                    failed = true;
+                }
+
+                var wallTime = Duration.ofNanos(System.nanoTime() - startTime);
+                var callCounts = getCallCountDeltas(callCountsBefore, calendarServer.getCallCounts());
+                var targetEventsByIcalUid = calendarServer.getActiveEventsByIcalUid(TARGET_CALENDAR_NAME);
+
+                logger.info("Run " + run + ": wallTime=" + wallTime.toMillis() + " ms" +
+                        ", apiCalls=" + callCounts.values().stream().mapToLong(Long::longValue).sum() + " " + callCounts +
+                        ", peakHeap=" + getPeakHeapUsage() / (1024 * 1024) + " MB" +
+                        ", " + progress);
+
+                var mismatches = getMismatches(feed.getEventsByIcalUid(), targetEventsByIcalUid);
+
+                if (!mismatches.isEmpty()) {
+                    logger.error("Run " + run + ": target calendar has " + targetEventsByIcalUid.size() + " events, feed has " + feed.size() +
+                            ", " + mismatches.size() + " mismatches: " + mismatches.subList(0, Math.min(mismatches.size(), MAX_LOGGED_MISMATCHES)));
+                    failed = true;
+                }
+            }
+
+            logger.info("ICS host requests: " + icsServer.getRequestCount());
+
+            System.exit(failed ? 1 : 0);
+        }
+    }
+
+    private static SyncService createSyncService(String rootUrl, double requestsPerSecond) throws Exception {
+        var meterRegistry = new SimpleMeterRegistry();
+        var snapshotDirectory = Files.createTempDirectory("moirai-loadtest-snapshots");
+        var syncStateDirectory = Files.createTempDirectory("moirai-loadtest-sync-state");
+
+        var callExecutor = new GoogleApiCallExecutor(meterRegistry, requestsPerSecond, requestsPerSecond, 0.2, 5, 100, 2000);
+        var clientFactory = new GoogleCalendarClientFactory(new GoogleAccountMetadataCache(3600),
+                new EventSnapshotStore(snapshotDirectory.toString()), callExecutor, new MutationBatchExecutor(8, 2), rootUrl, 10);
+
+        return new SyncService(new LoggingEmailSenderService(), clientFactory, new FeedFetcher(meterRegistry, 5000, 15000, 60000, 50 * 1024 * 1024),
+                new ParsedFeedCache(meterRegistry, 300, 32 * 1024 * 1024), new FeedValidatorStore(3600), new SyncMetrics(meterRegistry),
+                new SyncStateStore(new ObjectMapper(), syncStateDirectory.toString()), TARGET_CALENDAR_NAME, TARGET_CALENDAR_TIMEZONE, 0, 3650, 4);
+    }
+
+    private static List<String> getMismatches(Map<String, Event> feedEventsByIcalUid, Map<String, ObjectNode> targetEventsByIcalUid) {
+        var mismatches = new ArrayList<String>();
+        var icalUids = new TreeSet<>(feedEventsByIcalUid.keySet());
+        icalUids.addAll(targetEventsByIcalUid.keySet());
+
+        for (var icalUid : icalUids) {
+            var feedEvent = feedEventsByIcalUid.get(icalUid);
+            var targetEvent = targetEventsByIcalUid.get(icalUid);
+
+            if (feedEvent == null) {
+                mismatches.add(icalUid + " is not in the feed");
+            } else if (targetEvent == null) {
+                mismatches.add(icalUid + " is missing from the target calendar");
+            } else {
+                if (!feedEvent.getName().equals(targetEvent.path("summary").asText()))
+                    mismatches.add(icalUid + " summary is \"" + targetEvent.path("summary").asText() + "\" instead of \"" + feedEvent.getName() + "\"");
+
+                if (feedEvent.getStartEpochSecond() != getEpochSecond(targetEvent, "start"))
+                    mismatches.add(icalUid + " start is " + targetEvent.path("start") + " instead of " + feedEvent.getStart());
+
+                if (feedEvent.getEndEpochSecond() != getEpochSecond(targetEvent, "end"))
+                    mismatches.add(icalUid + " end is " + targetEvent.path("end") + " instead of " + feedEvent.getEnd());
+
+                var targetFingerprint = targetEvent.path("extendedProperties").path("private").path(CONTENT_FINGERPRINT_PROPERTY).asText(null);
+
+                if (!EventFingerprint.compute(feedEvent).equals(targetFingerprint))
+                    mismatches.add(icalUid + " sync hash is " + targetFingerprint + " instead of " + EventFingerprint.compute(feedEvent));
+            }
+        }
+
+        return mismatches;
+    }
+
+    private static long getEpochSecond(ObjectNode googleEvent, String fieldName) {
+        var dateTime = googleEvent.path(fieldName).path("dateTime");
+
+        return dateTime.isTextual() ? OffsetDateTime.parse(dateTime.asText()).toEpochSecond() : Long.MIN_VALUE;
+    }
+
+    private static Map<String, Long> getCallCountDeltas(Map<String, Long> callCountsBefore, Map<String, Long> callCountsAfter) {
+        var callCountDeltas = new TreeMap<String, Long>();
+
+        callCountsAfter.forEach((methodName, callCount) -> {
+            var delta = callCount - callCountsBefore.getOrDefault(methodName, 0L);
+
+            if (delta > 0)
+                callCountDeltas.put(methodName, delta);
+        });
+
+        return callCountDeltas;
+    }
+
+    private static void resetPeakHeapUsage() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long getPeakHeapUsage() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    private static class LoggingEmailSenderService extends EmailSenderService {
+
+        LoggingEmailSenderService() {
+            super(null, new SimpleMeterRegistry(), null, null, null, 3600, 1, 1);
+        }
+
+        @Override
+        public void sendErrorEmail(Exception exception) {
+            logger.warn("Error email suppressed by load test: " + exception);
+        }
+    }
+}
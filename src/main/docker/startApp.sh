@@ -1,3 +1,5 @@
 #!/bin/bash
 
-java -Djava.security.egd=file:/dev/./urandom -Dserver.port=${PORT} -Xms100m -Xmx280m -jar /app.jar
+java -Djava.security.egd=file:/dev/./urandom -Dserver.port=${PORT} -Xms100m -Xmx280m \
+    -Xshare:auto -XX:SharedArchiveFile=/app/app.jsa \
+    -cp "$(cat /app/classpath)" net.nlacombe.moirai.MoiraiWsApplication
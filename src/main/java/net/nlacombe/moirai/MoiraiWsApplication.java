@@ -6,6 +6,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class MoiraiWsApplication {
     public static void main(String[] args) {
-        SpringApplication.run(MoiraiWsApplication.class);
+        var context = SpringApplication.run(MoiraiWsApplication.class);
+
+        if (Boolean.getBoolean("moirai.startup.exitAfterStart"))
+            System.exit(SpringApplication.exit(context));
     }
 }
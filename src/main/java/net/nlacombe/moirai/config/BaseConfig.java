@@ -1,10 +1,26 @@
 package net.nlacombe.moirai.config;
 
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 
+import java.util.List;
+
 @Configuration
 @PropertySource("classpath:/config.properties")
 @PropertySource("classpath:/secrets.properties")
 public class BaseConfig {
+
+    private static final List<String> LAZY_BEAN_NAMES = List.of("mailSender");
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyBeansPostProcessor() {
+        return beanFactory -> {
+            for (var beanName : LAZY_BEAN_NAMES) {
+                if (beanFactory.containsBeanDefinition(beanName))
+                    beanFactory.getBeanDefinition(beanName).setLazyInit(true);
+            }
+        };
+    }
 }
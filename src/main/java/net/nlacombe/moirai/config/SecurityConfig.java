@@ -21,8 +21,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .cors().configurationSource(corsConfigurationSource()).and()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
                 .authorizeRequests()
-                .mvcMatchers("/actuator/health").permitAll()
+                .mvcMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 .mvcMatchers("/api/v1/syncIcalWithGoogleCalendar").permitAll()
+                .mvcMatchers("/api/v1/syncJobs/*").permitAll()
+                .mvcMatchers(HttpMethod.POST, "/api/v1/subscriptions").permitAll()
+                .mvcMatchers(HttpMethod.DELETE, "/api/v1/subscriptions/*").permitAll()
                 .anyRequest().authenticated();
     }
 
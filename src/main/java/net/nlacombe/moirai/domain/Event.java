@@ -1,21 +1,90 @@
 package net.nlacombe.moirai.domain;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Objects;
 
 public class Event implements Comparable<Event> {
 
-    private String icalUid;
-    private String name;
-    private String description;
-    private String location;
-    private ZonedDateTime start;
-    private ZonedDateTime end;
-    private EventParticipation participation;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final DateTimeFormatter RECURRENCE_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final String icalUid;
+    private final String name;
+    private final String description;
+    private final String location;
+    private final long startEpochSecond;
+    private final long endEpochSecond;
+    private final ZoneId timeZone;
+    private final EventParticipation participation;
+    private final List<String> recurrence;
+    private final long recurrenceIdEpochSecond;
+    private final String syncUid;
+    private int hash;
+
+    public Event(String icalUid, String name, String description, String location, ZonedDateTime start, ZonedDateTime end,
+                 EventParticipation participation) {
+
+        this(icalUid, name, description, location, start, end, participation, null, null);
+    }
+
+    public Event(String icalUid, String name, String description, String location, ZonedDateTime start, ZonedDateTime end,
+                 EventParticipation participation, List<String> recurrence, ZonedDateTime recurrenceId) {
+
+        this.icalUid = icalUid;
+        this.name = name;
+        this.description = description;
+        this.location = location != null ? location.intern() : null;
+        this.startEpochSecond = start != null ? start.toEpochSecond() : NO_TIME;
+        this.endEpochSecond = end != null ? end.toEpochSecond() : NO_TIME;
+        this.timeZone = start != null ? start.getZone() : recurrenceId != null ? recurrenceId.getZone() : end != null ? end.getZone() : null;
+        this.participation = participation;
+        this.recurrence = recurrence != null && !recurrence.isEmpty() ? List.copyOf(recurrence) : null;
+        this.recurrenceIdEpochSecond = recurrenceId != null ? recurrenceId.toEpochSecond() : NO_TIME;
+        this.syncUid = recurrenceId != null ? getSyncUid(icalUid, recurrenceId.toInstant()) : icalUid;
+    }
+
+    protected Event(Event content) {
+        this.icalUid = content.icalUid;
+        this.name = content.name;
+        this.description = content.description;
+        this.location = content.location;
+        this.startEpochSecond = content.startEpochSecond;
+        this.endEpochSecond = content.endEpochSecond;
+        this.timeZone = content.timeZone;
+        this.participation = content.participation;
+        this.recurrence = content.recurrence;
+        this.recurrenceIdEpochSecond = content.recurrenceIdEpochSecond;
+        this.syncUid = content.syncUid;
+        this.hash = content.hash;
+    }
+
+    public static Event withIcalUid(String icalUid) {
+        return withIcalUid(icalUid, null);
+    }
+
+    public static Event withIcalUid(String icalUid, ZonedDateTime recurrenceId) {
+        return new Event(icalUid, null, null, null, null, null, null, null, recurrenceId);
+    }
+
+    public static String getSyncUid(String icalUid, Instant recurrenceId) {
+        return icalUid + ";RECURRENCE-ID=" + RECURRENCE_ID_FORMATTER.format(recurrenceId);
+    }
+
+    public Event toOccurrence(ZonedDateTime originalStart) {
+        var occurrenceStart = originalStart.withZoneSameInstant(timeZone);
+        var occurrenceEnd = hasEnd() ? occurrenceStart.plusSeconds(endEpochSecond - startEpochSecond) : null;
+
+        return new Event(icalUid, name, description, location, occurrenceStart, occurrenceEnd, participation, null, occurrenceStart);
+    }
 
     @Override
     public int compareTo(Event event) {
-        return start.compareTo(event.getStart());
+        return Long.compare(startEpochSecond, event.startEpochSecond);
     }
 
     @Override
@@ -23,18 +92,35 @@ public class Event implements Comparable<Event> {
         if (this == o) return true;
         if (!(o instanceof Event)) return false;
         Event event = (Event) o;
-        return Objects.equals(icalUid, event.icalUid) &&
+        return startEpochSecond == event.startEpochSecond &&
+                endEpochSecond == event.endEpochSecond &&
+                recurrenceIdEpochSecond == event.recurrenceIdEpochSecond &&
+                participation == event.participation &&
+                Objects.equals(icalUid, event.icalUid) &&
                 Objects.equals(name, event.name) &&
-                Objects.equals(description, event.description) &&
                 Objects.equals(location, event.location) &&
-                Objects.equals(start, event.start) &&
-                Objects.equals(end, event.end) &&
-                participation == event.participation;
+                Objects.equals(description, event.description) &&
+                Objects.equals(recurrence, event.recurrence);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(icalUid, name, description, location, start, end, participation);
+        var hash = this.hash;
+
+        if (hash == 0) {
+            hash = Objects.hashCode(icalUid);
+            hash = 31 * hash + Objects.hashCode(name);
+            hash = 31 * hash + Objects.hashCode(description);
+            hash = 31 * hash + Objects.hashCode(location);
+            hash = 31 * hash + Long.hashCode(startEpochSecond);
+            hash = 31 * hash + Long.hashCode(endEpochSecond);
+            hash = 31 * hash + Objects.hashCode(participation);
+            hash = 31 * hash + Objects.hashCode(recurrence);
+            hash = 31 * hash + Long.hashCode(recurrenceIdEpochSecond);
+            this.hash = hash;
+        }
+
+        return hash;
     }
 
     @Override
@@ -43,9 +129,11 @@ public class Event implements Comparable<Event> {
                 "icalUid='" + icalUid + '\'' +
                 ", name='" + name + '\'' +
                 ", location='" + location + '\'' +
-                ", start=" + start +
-                ", end=" + end +
+                ", start=" + getStart() +
+                ", end=" + getEnd() +
                 ", participation=" + participation +
+                ", recurrence=" + recurrence +
+                ", recurrenceId=" + getRecurrenceId() +
                 '}';
     }
 
@@ -53,55 +141,75 @@ public class Event implements Comparable<Event> {
         return icalUid;
     }
 
-    public void setIcalUid(String icalUid) {
-        this.icalUid = icalUid;
+    public String getSyncUid() {
+        return syncUid;
     }
 
     public String getName() {
         return name;
     }
 
-    public void setName(String name) {
-        this.name = name;
-    }
-
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
     public String getLocation() {
         return location;
     }
 
-    public void setLocation(String location) {
-        this.location = location;
+    public ZonedDateTime getStart() {
+        return toZonedDateTime(startEpochSecond);
     }
 
-    public ZonedDateTime getStart() {
-        return start;
+    public ZonedDateTime getEnd() {
+        return toZonedDateTime(endEpochSecond);
     }
 
-    public void setStart(ZonedDateTime start) {
-        this.start = start;
+    public boolean hasStart() {
+        return startEpochSecond != NO_TIME;
     }
 
-    public ZonedDateTime getEnd() {
-        return end;
+    public long getStartEpochSecond() {
+        return startEpochSecond;
+    }
+
+    public boolean hasEnd() {
+        return endEpochSecond != NO_TIME;
     }
 
-    public void setEnd(ZonedDateTime end) {
-        this.end = end;
+    public long getEndEpochSecond() {
+        return endEpochSecond;
+    }
+
+    public ZoneId getTimeZone() {
+        return timeZone;
     }
 
     public EventParticipation getParticipation() {
         return participation;
     }
 
-    public void setParticipation(EventParticipation participation) {
-        this.participation = participation;
+    public boolean isRecurring() {
+        return recurrence != null;
+    }
+
+    public List<String> getRecurrence() {
+        return recurrence;
+    }
+
+    public boolean isRecurrenceOverride() {
+        return recurrenceIdEpochSecond != NO_TIME;
+    }
+
+    public ZonedDateTime getRecurrenceId() {
+        return toZonedDateTime(recurrenceIdEpochSecond);
+    }
+
+    public long getRecurrenceIdEpochSecond() {
+        return recurrenceIdEpochSecond;
+    }
+
+    private ZonedDateTime toZonedDateTime(long epochSecond) {
+        return epochSecond != NO_TIME ? Instant.ofEpochSecond(epochSecond).atZone(timeZone) : null;
     }
 }
@@ -0,0 +1,38 @@
+package net.nlacombe.moirai.domain;
+
+import net.nlacombe.moirai.util.Sha256;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+public class EventFingerprint {
+
+    private static final char FIELD_SEPARATOR = '\u001f';
+    private static final int FINGERPRINT_BYTE_LENGTH = 16;
+
+    public static String compute(Event event) {
+        var fingerprintSource = new StringBuilder(256)
+                .append(nullToEmpty(event.getIcalUid())).append(FIELD_SEPARATOR)
+                .append(nullToEmpty(event.getName())).append(FIELD_SEPARATOR)
+                .append(nullToEmpty(event.getDescription())).append(FIELD_SEPARATOR)
+                .append(nullToEmpty(event.getLocation())).append(FIELD_SEPARATOR)
+                .append(event.hasStart() ? String.valueOf(event.getStartEpochSecond()) : "").append(FIELD_SEPARATOR)
+                .append(event.hasEnd() ? String.valueOf(event.getEndEpochSecond()) : "").append(FIELD_SEPARATOR)
+                .append(event.getParticipation() != null ? event.getParticipation().getIcalCode() : "");
+
+        if (event.isRecurring())
+            event.getRecurrence().forEach(recurrenceLine -> fingerprintSource.append(FIELD_SEPARATOR).append(recurrenceLine));
+
+        if (event.isRecurrenceOverride())
+            fingerprintSource.append(FIELD_SEPARATOR).append(event.getSyncUid());
+
+        var digest = Sha256.newDigest().digest(fingerprintSource.toString().getBytes(StandardCharsets.UTF_8));
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, FINGERPRINT_BYTE_LENGTH));
+    }
+
+    private static String nullToEmpty(String text) {
+        return text != null ? text : "";
+    }
+}
@@ -0,0 +1,43 @@
+package net.nlacombe.moirai.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class TimeWindow {
+
+    private Instant start;
+    private Instant end;
+
+    public TimeWindow(Instant start, Instant end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public static TimeWindow around(Instant instant, Duration before, Duration after) {
+        return new TimeWindow(instant.minus(before), instant.plus(after));
+    }
+
+    public TimeWindow widen(Duration margin) {
+        return new TimeWindow(start.minus(margin), end.plus(margin));
+    }
+
+    public boolean contains(Instant instant) {
+        return instant.isAfter(start) && !instant.isAfter(end);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeWindow{" +
+                "start=" + start +
+                ", end=" + end +
+                '}';
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+}
@@ -1,10 +1,14 @@
 package net.nlacombe.moirai.dto;
 
+import java.util.List;
+
 public class IcalToGoogleCalendarSyncRequest {
 
     private String sourceCalendarIcalUrl;
+    private List<String> sourceCalendarIcalUrls;
     private String googleUserAccessToken;
     private String googleUserRefreshToken;
+    private String targetCalendarName;
 
     public String getSourceCalendarIcalUrl() {
         return sourceCalendarIcalUrl;
@@ -14,6 +18,14 @@ public class IcalToGoogleCalendarSyncRequest {
         this.sourceCalendarIcalUrl = sourceCalendarIcalUrl;
     }
 
+    public List<String> getSourceCalendarIcalUrls() {
+        return sourceCalendarIcalUrls;
+    }
+
+    public void setSourceCalendarIcalUrls(List<String> sourceCalendarIcalUrls) {
+        this.sourceCalendarIcalUrls = sourceCalendarIcalUrls;
+    }
+
     public String getGoogleUserAccessToken() {
         return googleUserAccessToken;
     }
@@ -29,4 +41,12 @@ public class IcalToGoogleCalendarSyncRequest {
     public void setGoogleUserRefreshToken(String googleUserRefreshToken) {
         this.googleUserRefreshToken = googleUserRefreshToken;
     }
+
+    public String getTargetCalendarName() {
+        return targetCalendarName;
+    }
+
+    public void setTargetCalendarName(String targetCalendarName) {
+        this.targetCalendarName = targetCalendarName;
+    }
 }
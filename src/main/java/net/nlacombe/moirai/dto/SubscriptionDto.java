@@ -0,0 +1,70 @@
+package net.nlacombe.moirai.dto;
+
+import java.util.List;
+
+public class SubscriptionDto {
+
+    private String subscriptionId;
+    private String sourceCalendarIcalUrl;
+    private List<String> sourceCalendarIcalUrls;
+    private String googleUserAccessToken;
+    private String googleUserRefreshToken;
+    private String targetCalendarName;
+    private Long syncIntervalSeconds;
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public void setSubscriptionId(String subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
+
+    public String getSourceCalendarIcalUrl() {
+        return sourceCalendarIcalUrl;
+    }
+
+    public void setSourceCalendarIcalUrl(String sourceCalendarIcalUrl) {
+        this.sourceCalendarIcalUrl = sourceCalendarIcalUrl;
+    }
+
+    public List<String> getSourceCalendarIcalUrls() {
+        return sourceCalendarIcalUrls;
+    }
+
+    public void setSourceCalendarIcalUrls(List<String> sourceCalendarIcalUrls) {
+        this.sourceCalendarIcalUrls = sourceCalendarIcalUrls;
+    }
+
+    public String getGoogleUserAccessToken() {
+        return googleUserAccessToken;
+    }
+
+    public void setGoogleUserAccessToken(String googleUserAccessToken) {
+        this.googleUserAccessToken = googleUserAccessToken;
+    }
+
+    public String getGoogleUserRefreshToken() {
+        return googleUserRefreshToken;
+    }
+
+    public void setGoogleUserRefreshToken(String googleUserRefreshToken) {
+        this.googleUserRefreshToken = googleUserRefreshToken;
+    }
+
+    public String getTargetCalendarName() {
+        return targetCalendarName;
+    }
+
+    public void setTargetCalendarName(String targetCalendarName) {
+        this.targetCalendarName = targetCalendarName;
+    }
+
+    public Long getSyncIntervalSeconds() {
+        return syncIntervalSeconds;
+    }
+
+    public void setSyncIntervalSeconds(Long syncIntervalSeconds) {
+        this.syncIntervalSeconds = syncIntervalSeconds;
+    }
+}
@@ -0,0 +1,106 @@
+package net.nlacombe.moirai.dto;
+
+import java.time.Instant;
+
+public class SyncJobDto {
+
+    private String jobId;
+    private String status;
+    private Instant queuedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String errorMessage;
+    private int eventsRead;
+    private int eventsCreated;
+    private int eventsUpdated;
+    private int eventsDeleted;
+    private int eventsFailed;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Instant getQueuedAt() {
+        return queuedAt;
+    }
+
+    public void setQueuedAt(Instant queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public int getEventsRead() {
+        return eventsRead;
+    }
+
+    public void setEventsRead(int eventsRead) {
+        this.eventsRead = eventsRead;
+    }
+
+    public int getEventsCreated() {
+        return eventsCreated;
+    }
+
+    public void setEventsCreated(int eventsCreated) {
+        this.eventsCreated = eventsCreated;
+    }
+
+    public int getEventsUpdated() {
+        return eventsUpdated;
+    }
+
+    public void setEventsUpdated(int eventsUpdated) {
+        this.eventsUpdated = eventsUpdated;
+    }
+
+    public int getEventsDeleted() {
+        return eventsDeleted;
+    }
+
+    public void setEventsDeleted(int eventsDeleted) {
+        this.eventsDeleted = eventsDeleted;
+    }
+
+    public int getEventsFailed() {
+        return eventsFailed;
+    }
+
+    public void setEventsFailed(int eventsFailed) {
+        this.eventsFailed = eventsFailed;
+    }
+}
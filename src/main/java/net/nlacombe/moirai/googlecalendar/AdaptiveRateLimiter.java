@@ -0,0 +1,68 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveRateLimiter {
+
+    private static final double RATE_RECOVERY_RATIO = 0.05;
+
+    private double maxPermitsPerSecond;
+    private double minPermitsPerSecond;
+    private double permitsPerSecond;
+    private double availablePermits;
+    private long lastRefillNanos;
+
+    public AdaptiveRateLimiter(double maxPermitsPerSecond, double minPermitsPerSecond) {
+        this.maxPermitsPerSecond = maxPermitsPerSecond;
+        this.minPermitsPerSecond = minPermitsPerSecond;
+        this.permitsPerSecond = maxPermitsPerSecond;
+        this.availablePermits = getBurstCapacity();
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire() {
+        long waitNanos;
+
+        synchronized (this) {
+            refill();
+            availablePermits--;
+            waitNanos = availablePermits < 0 ? (long) (-availablePermits / permitsPerSecond * TimeUnit.SECONDS.toNanos(1)) : 0;
+        }
+
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for google calendar api rate limit", e);
+            }
+        }
+    }
+
+    public synchronized void onSuccess() {
+        refill();
+        permitsPerSecond = Math.min(maxPermitsPerSecond, permitsPerSecond + maxPermitsPerSecond * RATE_RECOVERY_RATIO);
+    }
+
+    public synchronized void onThrottled() {
+        refill();
+        permitsPerSecond = Math.max(minPermitsPerSecond, permitsPerSecond / 2);
+        availablePermits = Math.min(availablePermits, 0);
+    }
+
+    public synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    private void refill() {
+        var now = System.nanoTime();
+        var elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        availablePermits = Math.min(getBurstCapacity(), availablePermits + elapsedSeconds * permitsPerSecond);
+        lastRefillNanos = now;
+    }
+
+    private double getBurstCapacity() {
+        return Math.max(1, permitsPerSecond);
+    }
+}
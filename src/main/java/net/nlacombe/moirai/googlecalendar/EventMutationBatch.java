@@ -0,0 +1,241 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.googleapis.services.json.AbstractGoogleJsonClientRequest;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.services.calendar.Calendar;
+import net.nlacombe.moirai.domain.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class EventMutationBatch {
+
+    public static final int MAX_BATCH_SIZE = 50;
+
+    private static final String BATCH_PATH = "batch/calendar/v3";
+    private static final Logger logger = LoggerFactory.getLogger(EventMutationBatch.class);
+
+    private Calendar googleCalendarApiClient;
+    private String calendarId;
+    private String accountKey;
+    private GoogleApiCallExecutor callExecutor;
+    private MutationBatchExecutor mutationBatchExecutor;
+    private Function<Event, com.google.api.services.calendar.model.Event> googleEventMapper;
+    private Runnable calendarNotFoundHandler;
+    private List<QueuedMutation> pendingMutations;
+
+    EventMutationBatch(Calendar googleCalendarApiClient, String calendarId, String accountKey, GoogleApiCallExecutor callExecutor,
+                       MutationBatchExecutor mutationBatchExecutor,
+                       Function<Event, com.google.api.services.calendar.model.Event> googleEventMapper,
+                       Runnable calendarNotFoundHandler) {
+
+        this.googleCalendarApiClient = googleCalendarApiClient;
+        this.calendarId = calendarId;
+        this.accountKey = accountKey;
+        this.callExecutor = callExecutor;
+        this.mutationBatchExecutor = mutationBatchExecutor;
+        this.googleEventMapper = googleEventMapper;
+        this.calendarNotFoundHandler = calendarNotFoundHandler;
+        this.pendingMutations = new ArrayList<>();
+    }
+
+    public void createEvent(Event event, EventMutationCallback callback) {
+        var googleEvent = googleEventMapper.apply(event);
+
+        enqueue(new QueuedMutation(null, callback,
+                () -> googleCalendarApiClient.events().insert(calendarId, googleEvent)));
+    }
+
+    public void updateEvent(GoogleEvent event, EventMutationCallback callback) {
+        var googleEvent = googleEventMapper.apply(event);
+        googleEvent.setId(event.getGoogleEventId());
+
+        enqueue(new QueuedMutation(event.getGoogleEventId(), callback,
+                () -> googleCalendarApiClient.events().update(calendarId, googleEvent.getId(), googleEvent)));
+    }
+
+    public void removeEvent(String googleEventId, EventMutationCallback callback) {
+        var mutation = new QueuedMutation(googleEventId, callback,
+                () -> googleCalendarApiClient.events().delete(calendarId, googleEventId));
+        mutation.delete = true;
+
+        enqueue(mutation);
+    }
+
+    public void flush() {
+        var mutations = pendingMutations;
+        pendingMutations = new ArrayList<>();
+        var attempt = 1;
+        var mutationsToSend = mutations;
+
+        while (!mutationsToSend.isEmpty()) {
+            var batches = new ArrayList<Runnable>();
+
+            for (var batchStart = 0; batchStart < mutationsToSend.size(); batchStart += MAX_BATCH_SIZE) {
+                var batchMutations = mutationsToSend.subList(batchStart, Math.min(batchStart + MAX_BATCH_SIZE, mutationsToSend.size()));
+                batches.add(() -> executeBatch(batchMutations));
+            }
+
+            mutationBatchExecutor.runAll(accountKey, batches);
+
+            mutationsToSend = mutationsToSend.stream()
+                    .filter(mutation -> mutation.retry)
+                    .collect(Collectors.toList());
+
+            if (!mutationsToSend.isEmpty()) {
+                var backoff = callExecutor.getBackoff(attempt++, null);
+                logger.info("Retrying " + mutationsToSend.size() + " event mutations in " + backoff.toMillis() + " ms.");
+
+                callExecutor.sleep(backoff);
+                mutationsToSend.forEach(mutation -> mutation.retry = false);
+            }
+        }
+
+        if (mutations.stream().anyMatch(EventMutationBatch::isEventNotFound) && !calendarExists())
+            calendarNotFoundHandler.run();
+
+        mutations.forEach(this::reportResult);
+    }
+
+    private void enqueue(QueuedMutation mutation) {
+        pendingMutations.add(mutation);
+
+        if (pendingMutations.size() >= MAX_BATCH_SIZE * mutationBatchExecutor.getMaxParallelBatchesPerAccount())
+            flush();
+    }
+
+    private void executeBatch(List<QueuedMutation> mutations) {
+        try {
+            logger.debug("Sending batch of " + mutations.size() + " event mutations for calendar \"" + calendarId + "\".");
+
+            var idempotent = mutations.stream().noneMatch(mutation -> mutation.googleEventId == null);
+
+            callExecutor.execute(accountKey, "batch", idempotent, () -> {
+                var batchRequest = googleCalendarApiClient.batch();
+                batchRequest.setBatchUrl(new GenericUrl(googleCalendarApiClient.getRootUrl() + BATCH_PATH));
+
+                for (var mutation : mutations)
+                    queue(batchRequest, mutation.requestFactory.create(), mutation);
+
+                batchRequest.execute();
+
+                return null;
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error calling google calendar api.", e);
+        }
+    }
+
+    private <T> void queue(BatchRequest batchRequest, AbstractGoogleJsonClientRequest<T> request, QueuedMutation mutation) throws IOException {
+        request.queue(batchRequest, new MutationBatchCallback<>(mutation));
+    }
+
+    private void onMutationFailure(QueuedMutation mutation, GoogleJsonError error) {
+        if (callExecutor.isRetryable(error) && mutation.attempt < callExecutor.getMaxAttempts()) {
+            if (callExecutor.isThrottling(error.getCode()))
+                callExecutor.onThrottled(accountKey);
+
+            callExecutor.recordRetry("batch.item", String.valueOf(error.getCode()));
+            mutation.attempt++;
+            mutation.retry = true;
+
+            return;
+        }
+
+        mutation.error = error;
+    }
+
+    private void reportResult(QueuedMutation mutation) {
+        var error = mutation.error;
+
+        if (error == null) {
+            mutation.callback.onSuccess(mutation.resultGoogleEventId);
+            return;
+        }
+
+        if (mutation.delete && isNotFound(error.getCode())) {
+            mutation.callback.onSuccess(mutation.googleEventId);
+            return;
+        }
+
+        mutation.callback.onFailure(error.getCode(), error.getMessage());
+    }
+
+    private boolean calendarExists() {
+        try {
+            callExecutor.execute(accountKey, "calendars.get", googleCalendarApiClient.calendars().get(calendarId));
+
+            return true;
+        } catch (GoogleJsonResponseException e) {
+            if (isNotFound(e.getStatusCode()))
+                return false;
+
+            throw new RuntimeException("Error calling google calendar api.", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error calling google calendar api.", e);
+        }
+    }
+
+    private static boolean isEventNotFound(QueuedMutation mutation) {
+        return !mutation.delete && mutation.error != null && isNotFound(mutation.error.getCode());
+    }
+
+    private static boolean isNotFound(int statusCode) {
+        return statusCode == 404 || statusCode == 410;
+    }
+
+    private class MutationBatchCallback<T> extends JsonBatchCallback<T> {
+
+        private QueuedMutation mutation;
+
+        MutationBatchCallback(QueuedMutation mutation) {
+            this.mutation = mutation;
+        }
+
+        @Override
+        public void onSuccess(T response, HttpHeaders responseHeaders) {
+            var googleEventId = response instanceof com.google.api.services.calendar.model.Event ?
+                    ((com.google.api.services.calendar.model.Event) response).getId() : mutation.googleEventId;
+
+            mutation.resultGoogleEventId = googleEventId;
+        }
+
+        @Override
+        public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+            onMutationFailure(mutation, error);
+        }
+    }
+
+    private static class QueuedMutation {
+
+        private String googleEventId;
+        private EventMutationCallback callback;
+        private RequestFactory requestFactory;
+        private boolean delete;
+        private int attempt;
+        private volatile boolean retry;
+        private volatile String resultGoogleEventId;
+        private volatile GoogleJsonError error;
+
+        QueuedMutation(String googleEventId, EventMutationCallback callback, RequestFactory requestFactory) {
+            this.googleEventId = googleEventId;
+            this.callback = callback;
+            this.requestFactory = requestFactory;
+            this.attempt = 1;
+        }
+    }
+
+    private interface RequestFactory {
+        AbstractGoogleJsonClientRequest<?> create() throws IOException;
+    }
+}
@@ -0,0 +1,8 @@
+package net.nlacombe.moirai.googlecalendar;
+
+public interface EventMutationCallback {
+
+    void onSuccess(String googleEventId);
+
+    void onFailure(int statusCode, String errorMessage);
+}
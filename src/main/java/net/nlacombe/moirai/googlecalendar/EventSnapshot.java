@@ -0,0 +1,74 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import com.google.api.services.calendar.model.Event;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EventSnapshot {
+
+    private String syncToken;
+    private Instant listedFrom;
+    private Instant listedTo;
+    private Map<String, Event> eventsById;
+    private List<Event> cancelledEvents;
+
+    public EventSnapshot() {
+        this(null);
+    }
+
+    public EventSnapshot(String syncToken) {
+        this.syncToken = syncToken;
+        this.eventsById = new LinkedHashMap<>();
+        this.cancelledEvents = new ArrayList<>();
+    }
+
+    public void putEvent(Event event) {
+        if ("cancelled".equals(event.getStatus())) {
+            eventsById.remove(event.getId());
+            cancelledEvents.add(event);
+        } else {
+            eventsById.put(event.getId(), event);
+        }
+    }
+
+    public Collection<Event> getEvents() {
+        return eventsById.values();
+    }
+
+    public List<Event> getCancelledEvents() {
+        return cancelledEvents;
+    }
+
+    public int size() {
+        return eventsById.size();
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    public void setSyncToken(String syncToken) {
+        this.syncToken = syncToken;
+    }
+
+    public Instant getListedFrom() {
+        return listedFrom;
+    }
+
+    public void setListedFrom(Instant listedFrom) {
+        this.listedFrom = listedFrom;
+    }
+
+    public Instant getListedTo() {
+        return listedTo;
+    }
+
+    public void setListedTo(Instant listedTo) {
+        this.listedTo = listedTo;
+    }
+}
@@ -0,0 +1,113 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.calendar.model.Event;
+import net.nlacombe.moirai.util.Sha256;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+
+@Component
+public class EventSnapshotStore {
+
+    private static final String SNAPSHOT_FILE_SUFFIX = ".series.snapshot";
+    private static final Logger logger = LoggerFactory.getLogger(EventSnapshotStore.class);
+
+    private Path directory;
+    private JsonFactory jsonFactory;
+
+    @Inject
+    public EventSnapshotStore(@Value("${googleCalendar.eventSnapshot.directory}") String directory) {
+        this.directory = StringUtils.isBlank(directory) ? null : Paths.get(directory);
+        this.jsonFactory = JacksonFactory.getDefaultInstance();
+    }
+
+    public EventSnapshot load(String accountKey, String calendarId) {
+        if (directory == null)
+            return null;
+
+        var snapshotFile = getSnapshotFile(accountKey, calendarId);
+
+        if (!Files.exists(snapshotFile))
+            return null;
+
+        try (var reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            var header = reader.readLine().split(" ", 3);
+            var snapshot = new EventSnapshot(header[0]);
+
+            if (header.length > 1)
+                snapshot.setListedFrom(Instant.ofEpochMilli(Long.parseLong(header[1])));
+
+            if (header.length > 2)
+                snapshot.setListedTo(Instant.ofEpochMilli(Long.parseLong(header[2])));
+
+            String line;
+
+            while ((line = reader.readLine()) != null)
+                snapshot.putEvent(jsonFactory.fromString(line, Event.class));
+
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable event snapshot \"" + snapshotFile + "\".", e);
+
+            return null;
+        }
+    }
+
+    public void save(String accountKey, String calendarId, EventSnapshot snapshot) {
+        if (directory == null || snapshot.getSyncToken() == null)
+            return;
+
+        var snapshotFile = getSnapshotFile(accountKey, calendarId);
+
+        try {
+            Files.createDirectories(directory);
+            var temporaryFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+
+            try (var writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                writer.write(snapshot.getSyncToken());
+
+                if (snapshot.getListedFrom() != null && snapshot.getListedTo() != null)
+                    writer.write(" " + snapshot.getListedFrom().toEpochMilli() + " " + snapshot.getListedTo().toEpochMilli());
+
+                writer.newLine();
+
+                for (var event : snapshot.getEvents()) {
+                    writer.write(jsonFactory.toString(event));
+                    writer.newLine();
+                }
+            }
+
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not save event snapshot \"" + snapshotFile + "\", next sync will do a full listing.", e);
+        }
+    }
+
+    public void remove(String accountKey, String calendarId) {
+        if (directory == null)
+            return;
+
+        try {
+            Files.deleteIfExists(getSnapshotFile(accountKey, calendarId));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Path getSnapshotFile(String accountKey, String calendarId) {
+        return directory.resolve(Sha256.toKey(accountKey + " " + calendarId) + SNAPSHOT_FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,84 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+public class GoogleAccountMetadataCache {
+
+    private static final String CACHE_NAME = "googleAccountMetadata";
+    private static final String KEY_SEPARATOR = "/";
+    private static final Logger logger = LoggerFactory.getLogger(GoogleAccountMetadataCache.class);
+
+    private Cache<String, Object> cache;
+
+    @Inject
+    public GoogleAccountMetadataCache(@Value("${googleCalendar.metadataCache.ttlSeconds}") long ttlSeconds) {
+        var cacheManager = Caching.getCachingProvider().getCacheManager();
+        var existingCache = cacheManager.getCache(CACHE_NAME, String.class, Object.class);
+
+        if (existingCache != null) {
+            cache = existingCache;
+        } else {
+            var cacheConfiguration = new MutableConfiguration<String, Object>()
+                    .setTypes(String.class, Object.class)
+                    .setStoreByValue(false)
+                    .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, ttlSeconds)));
+
+            cache = cacheManager.createCache(CACHE_NAME, cacheConfiguration);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String accountKey, String entryName, Supplier<T> loader) {
+        var key = getKey(accountKey, entryName);
+        var value = (T) cache.get(key);
+
+        if (value == null) {
+            value = loader.get();
+
+            if (value != null)
+                cache.put(key, value);
+        }
+
+        return value;
+    }
+
+    public void put(String accountKey, String entryName, Object value) {
+        cache.put(getKey(accountKey, entryName), value);
+    }
+
+    public void remove(String accountKey, String entryName) {
+        cache.remove(getKey(accountKey, entryName));
+    }
+
+    public void invalidate(String accountKey) {
+        var accountKeyPrefix = accountKey + KEY_SEPARATOR;
+        var keysToRemove = new ArrayList<String>();
+
+        cache.forEach(entry -> {
+            if (entry.getKey().startsWith(accountKeyPrefix))
+                keysToRemove.add(entry.getKey());
+        });
+
+        logger.info("Invalidating " + keysToRemove.size() + " cached google account metadata entries.");
+
+        keysToRemove.forEach(cache::remove);
+    }
+
+    private static String getKey(String accountKey, String entryName) {
+        return accountKey + KEY_SEPARATOR + entryName;
+    }
+}
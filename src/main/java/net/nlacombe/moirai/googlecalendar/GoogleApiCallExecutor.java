@@ -0,0 +1,228 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import com.google.api.client.http.HttpResponseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+@Component
+public class GoogleApiCallExecutor {
+
+    private static final Set<String> RATE_LIMIT_REASONS = Set.of("rateLimitExceeded", "userRateLimitExceeded", "quotaExceeded");
+    private static final String IO_ERROR_STATUS = "IO_ERROR";
+    private static final int SUCCESS_STATUS_CODE = 200;
+    private static final Logger logger = LoggerFactory.getLogger(GoogleApiCallExecutor.class);
+
+    private MeterRegistry meterRegistry;
+    private AdaptiveRateLimiter projectRateLimiter;
+    private Map<String, AdaptiveRateLimiter> accountRateLimiters;
+    private double accountRequestsPerSecond;
+    private double minRequestsPerSecond;
+    private int maxAttempts;
+    private Duration initialBackoff;
+    private Duration maxBackoff;
+
+    @Inject
+    public GoogleApiCallExecutor(MeterRegistry meterRegistry,
+                                 @Value("${googleCalendar.rateLimit.projectRequestsPerSecond}") double projectRequestsPerSecond,
+                                 @Value("${googleCalendar.rateLimit.accountRequestsPerSecond}") double accountRequestsPerSecond,
+                                 @Value("${googleCalendar.rateLimit.minRequestsPerSecond}") double minRequestsPerSecond,
+                                 @Value("${googleCalendar.retry.maxAttempts}") int maxAttempts,
+                                 @Value("${googleCalendar.retry.initialBackoffMillis}") long initialBackoffMillis,
+                                 @Value("${googleCalendar.retry.maxBackoffMillis}") long maxBackoffMillis) {
+
+        this.meterRegistry = meterRegistry;
+        this.projectRateLimiter = new AdaptiveRateLimiter(projectRequestsPerSecond, minRequestsPerSecond);
+        this.accountRateLimiters = new ConcurrentHashMap<>();
+        this.accountRequestsPerSecond = accountRequestsPerSecond;
+        this.minRequestsPerSecond = minRequestsPerSecond;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+    }
+
+    public <T> T execute(String accountKey, String methodName, AbstractGoogleClientRequest<T> request) throws IOException {
+        return execute(accountKey, methodName, "GET".equals(request.getRequestMethod()), request::execute, request::getLastStatusCode);
+    }
+
+    public <T> T execute(String accountKey, String methodName, boolean idempotent, ApiCall<T> apiCall) throws IOException {
+        return execute(accountKey, methodName, idempotent, apiCall, () -> SUCCESS_STATUS_CODE);
+    }
+
+    private <T> T execute(String accountKey, String methodName, boolean idempotent, ApiCall<T> apiCall, IntSupplier statusCodeSupplier)
+            throws IOException {
+
+        for (var attempt = 1; ; attempt++) {
+            acquire(accountKey);
+            var callTimer = Timer.start(meterRegistry);
+
+            try {
+                var result = apiCall.execute();
+                callTimer.stop(getCallTimer(methodName, String.valueOf(statusCodeSupplier.getAsInt())));
+                onSuccess(accountKey);
+
+                return result;
+            } catch (IOException e) {
+                var status = e instanceof HttpResponseException ? String.valueOf(((HttpResponseException) e).getStatusCode()) : IO_ERROR_STATUS;
+                callTimer.stop(getCallTimer(methodName, status));
+
+                if (attempt >= maxAttempts || !isRetryable(e, idempotent))
+                    throw e;
+
+                recordRetry(methodName, status);
+                var backoff = getBackoff(attempt, getRetryAfter(e));
+
+                if (e instanceof HttpResponseException) {
+                    if (isThrottling(((HttpResponseException) e).getStatusCode()))
+                        onThrottled(accountKey);
+
+                    logger.info("Google calendar api call " + methodName + " got status " + ((HttpResponseException) e).getStatusCode() +
+                            ", retrying in " + backoff.toMillis() + " ms (attempt " + attempt + "/" + maxAttempts + ").");
+                } else {
+                    logger.info("Google calendar api call " + methodName + " failed with " + e + ", retrying in " + backoff.toMillis() + " ms.");
+                }
+
+                sleep(backoff);
+            }
+        }
+    }
+
+    public void acquire(String accountKey) {
+        getAccountRateLimiter(accountKey).acquire();
+        projectRateLimiter.acquire();
+    }
+
+    public void onSuccess(String accountKey) {
+        getAccountRateLimiter(accountKey).onSuccess();
+        projectRateLimiter.onSuccess();
+    }
+
+    public void onThrottled(String accountKey) {
+        getAccountRateLimiter(accountKey).onThrottled();
+        projectRateLimiter.onThrottled();
+    }
+
+    public void recordRetry(String methodName, String status) {
+        meterRegistry.counter("moirai.google.api.retries", "method", methodName, "status", status).increment();
+    }
+
+    public boolean isRetryable(int statusCode, String reason) {
+        return statusCode == 429 || statusCode >= 500 || (statusCode == 403 && RATE_LIMIT_REASONS.contains(reason));
+    }
+
+    public boolean isThrottling(int statusCode) {
+        return statusCode == 429 || statusCode == 403;
+    }
+
+    public boolean isRetryable(GoogleJsonError error) {
+        return isRetryable(error.getCode(), getReason(error));
+    }
+
+    public Duration getBackoff(int attempt, Duration retryAfter) {
+        var exponentialBackoff = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        var jitteredBackoff = Duration.ofMillis(ThreadLocalRandom.current().nextLong(exponentialBackoff / 2, exponentialBackoff + 1));
+
+        return retryAfter != null && retryAfter.compareTo(jitteredBackoff) > 0 ? retryAfter : jitteredBackoff;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void sleep(Duration duration) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry google calendar api call", e);
+        }
+    }
+
+    private boolean isRetryable(IOException exception, boolean idempotent) {
+        if (exception instanceof GoogleJsonResponseException) {
+            var responseException = (GoogleJsonResponseException) exception;
+
+            return isRetryable(responseException.getStatusCode(), getReason(responseException.getDetails()));
+        }
+
+        if (exception instanceof HttpResponseException)
+            return isRetryable(((HttpResponseException) exception).getStatusCode(), null);
+
+        return idempotent || isConnectFailure(exception);
+    }
+
+    private static boolean isConnectFailure(IOException exception) {
+        return exception instanceof ConnectException || exception instanceof NoRouteToHostException ||
+                exception instanceof UnknownHostException || exception instanceof SSLHandshakeException;
+    }
+
+    private static String getReason(GoogleJsonError error) {
+        if (error == null || CollectionUtils.isEmpty(error.getErrors()))
+            return null;
+
+        return error.getErrors().get(0).getReason();
+    }
+
+    private static Duration getRetryAfter(IOException exception) {
+        if (!(exception instanceof HttpResponseException))
+            return null;
+
+        var retryAfter = ((HttpResponseException) exception).getHeaders().getRetryAfter();
+
+        return retryAfter != null ? parseRetryAfter(retryAfter.trim(), Instant.now()) : null;
+    }
+
+    static Duration parseRetryAfter(String retryAfter, Instant now) {
+        try {
+            if (!retryAfter.isEmpty() && retryAfter.chars().allMatch(Character::isDigit))
+                return Duration.ofSeconds(Long.parseLong(retryAfter));
+
+            var retryDelay = Duration.between(now, ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+
+            return retryDelay.isNegative() ? Duration.ZERO : retryDelay;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Timer getCallTimer(String methodName, String status) {
+        return Timer.builder("moirai.google.api.calls")
+                .tag("method", methodName)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private AdaptiveRateLimiter getAccountRateLimiter(String accountKey) {
+        return accountRateLimiters.computeIfAbsent(accountKey, key -> new AdaptiveRateLimiter(accountRequestsPerSecond, minRequestsPerSecond));
+    }
+
+    public interface ApiCall<T> {
+        T execute() throws IOException;
+    }
+}
@@ -1,51 +1,79 @@
 package net.nlacombe.moirai.googlecalendar;
 
-import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import com.google.api.services.calendar.model.EventAttendee;
 import com.google.api.services.calendar.model.EventDateTime;
-import net.nlacombe.commonlib.stream.PageIterator;
-import net.nlacombe.commonlib.stream.StreamUtil;
 import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventFingerprint;
 import net.nlacombe.moirai.domain.EventParticipation;
+import net.nlacombe.moirai.domain.TimeWindow;
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class GoogleCalendarClient {
 
-    private static final String APPLICATION_NAME = "morai";
-    private static final String CREDENTIALS_CLASSPATH = "/google-client-secret.json";
+    private static final String PRIMARY_CALENDAR_EMAIL_CACHE_ENTRY = "primaryCalendarEmail";
+    private static final String CALENDAR_LIST_CACHE_ENTRY = "calendarList";
+    private static final String CALENDAR_BY_NAME_CACHE_ENTRY_PREFIX = "calendarByName/";
+    private static final String CONTENT_FINGERPRINT_PROPERTY = "moiraiContentFingerprint";
+    private static final DateTimeFormatter INSTANCE_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
     private static final Logger logger = LoggerFactory.getLogger(GoogleCalendarClient.class);
 
     private Calendar googleCalendarApiClient;
+    private GoogleAccountMetadataCache metadataCache;
+    private EventSnapshotStore eventSnapshotStore;
+    private GoogleApiCallExecutor callExecutor;
+    private MutationBatchExecutor mutationBatchExecutor;
+    private String accountKey;
+
+    GoogleCalendarClient(Calendar googleCalendarApiClient, String accountKey, GoogleAccountMetadataCache metadataCache,
+                         EventSnapshotStore eventSnapshotStore, GoogleApiCallExecutor callExecutor,
+                         MutationBatchExecutor mutationBatchExecutor) {
+
+        this.googleCalendarApiClient = googleCalendarApiClient;
+        this.accountKey = accountKey;
+        this.metadataCache = metadataCache;
+        this.eventSnapshotStore = eventSnapshotStore;
+        this.callExecutor = callExecutor;
+        this.mutationBatchExecutor = mutationBatchExecutor;
+    }
 
-    public GoogleCalendarClient(String googleUserAccessToken, String googleUserRefreshToken) {
-        InputStream clientSecretCredentialInputStream = getClass().getResourceAsStream(CREDENTIALS_CLASSPATH);
+    public String getPrimaryCalendarEmail() {
+        return metadataCache.get(accountKey, PRIMARY_CALENDAR_EMAIL_CACHE_ENTRY, this::fetchPrimaryCalendarEmail);
+    }
 
-        googleCalendarApiClient = getGoogleCalendarApiClient(APPLICATION_NAME, clientSecretCredentialInputStream,
-                googleUserAccessToken, googleUserRefreshToken);
+    public GoogleCalendar getCalendarByName(String calendarName) {
+        return metadataCache.get(accountKey, CALENDAR_BY_NAME_CACHE_ENTRY_PREFIX + calendarName,
+                () -> getCalendarList().stream()
+                        .filter(calendar -> calendarName.equals(calendar.getName()))
+                        .findAny()
+                        .orElse(null));
     }
 
-    public String getPrimaryCalendarEmail() {
+    public void invalidateMetadataCache() {
+        metadataCache.invalidate(accountKey);
+    }
+
+    private String fetchPrimaryCalendarEmail() {
         try {
-            var calendar = googleCalendarApiClient.calendarList().get("primary").execute();
+            var calendar = execute("calendarList.get", googleCalendarApiClient.calendarList().get("primary"));
 
             if (!calendar.getId().endsWith("@gmail.com"))
                 throw new RuntimeException("Primary Google Calendar email not found.");
@@ -53,23 +81,23 @@ public class GoogleCalendarClient {
             return calendar.getId();
 
         } catch (IOException e) {
-            throw new RuntimeException("Error calling google calendar api.", e);
+            throw toApiException(e);
         }
     }
 
-    public GoogleCalendar getCalendarByName(String calendarName) {
-        try {
-            var calendars = googleCalendarApiClient.calendarList().list().execute().getItems();
+    private List<GoogleCalendar> getCalendarList() {
+        return metadataCache.get(accountKey, CALENDAR_LIST_CACHE_ENTRY, () -> {
+            try {
+                var calendars = execute("calendarList.list", googleCalendarApiClient.calendarList().list()).getItems();
 
-            return calendars.stream()
-                    .map(this::toGoogleCalendar)
-                    .filter(calendar -> calendarName.equals(calendar.getName()))
-                    .findAny()
-                    .orElse(null);
+                return calendars.stream()
+                        .map(this::toGoogleCalendar)
+                        .collect(Collectors.toList());
 
-        } catch (IOException e) {
-            throw new RuntimeException("Error calling google calendar api.", e);
-        }
+            } catch (IOException e) {
+                throw toApiException(e);
+            }
+        });
     }
 
     public GoogleCalendar createCalendar(String calendarName, ZoneId timezone) {
@@ -78,97 +106,122 @@ public class GoogleCalendarClient {
             calendar.setSummary(calendarName);
             calendar.setTimeZone(timezone.getId());
 
-            calendar = googleCalendarApiClient.calendars().insert(calendar).execute();
+            calendar = execute("calendars.insert", googleCalendarApiClient.calendars().insert(calendar));
+            var googleCalendar = toGoogleCalendar(calendar);
+
+            metadataCache.remove(accountKey, CALENDAR_LIST_CACHE_ENTRY);
+            metadataCache.put(accountKey, CALENDAR_BY_NAME_CACHE_ENTRY_PREFIX + calendarName, googleCalendar);
 
-            return toGoogleCalendar(calendar);
+            return googleCalendar;
 
         } catch (IOException e) {
-            throw new RuntimeException("Error calling google calendar api.", e);
+            throw toApiException(e);
         }
     }
 
-    public GoogleEvent getEventFromIcalUid(String calendarId, String icalUid) {
-        try {
-            return googleCalendarApiClient.events().list(calendarId)
-                    .setICalUID(icalUid)
-                    .setMaxResults(1)
-                    .setShowDeleted(true)
-                    .setSingleEvents(true)
-                    .execute()
-                    .getItems()
-                    .stream()
-                    .map(this::toEvent)
-                    .findAny()
-                    .orElse(null);
-        } catch (IOException e) {
-            throw new RuntimeException("Error calling google calendar api.", e);
+    public Stream<GoogleEvent> getAllEvents(String calendarId, TimeWindow timeWindow) {
+        var snapshot = eventSnapshotStore.load(accountKey, calendarId);
+
+        if (snapshot != null && !isCovering(snapshot, timeWindow)) {
+            logger.info("Event snapshot of calendar \"" + calendarId + "\" does not cover " + timeWindow + ".");
+            snapshot = null;
         }
+
+        if (snapshot == null || !listEventChanges(calendarId, snapshot, null)) {
+            var listingWindow = getListingWindow(timeWindow);
+            logger.info("Listing all events of calendar \"" + calendarId + "\" in " + listingWindow + ".");
+
+            snapshot = new EventSnapshot();
+            snapshot.setListedFrom(listingWindow.getStart());
+            snapshot.setListedTo(listingWindow.getEnd());
+            listEventChanges(calendarId, snapshot, listingWindow);
+        }
+
+        snapshot.getEvents().removeIf(event -> !isRecurring(event) && getStart(event) != null && getStart(event).isBefore(timeWindow.getStart()));
+        eventSnapshotStore.save(accountKey, calendarId, snapshot);
+
+        return Stream.concat(snapshot.getEvents().stream(), snapshot.getCancelledEvents().stream())
+                .filter(event -> isRecurring(event) || getStart(event) == null || timeWindow.contains(getStart(event)))
+                .map(this::toEvent);
     }
 
-    public Stream<GoogleEvent> getAllEvents(String calendarId) {
-        var pageIterator = new PageIterator<com.google.api.services.calendar.model.Event>() {
+    private static TimeWindow getListingWindow(TimeWindow timeWindow) {
+        var windowLength = Duration.between(timeWindow.getStart(), timeWindow.getEnd());
 
-            private String pageToken = null;
-            private boolean firstPage = true;
+        return new TimeWindow(timeWindow.getStart(), timeWindow.getEnd().plus(windowLength));
+    }
 
-            @Override
-            public boolean hasNext() {
-                return firstPage || pageToken != null;
-            }
+    private static boolean isCovering(EventSnapshot snapshot, TimeWindow timeWindow) {
+        return snapshot.getListedFrom() != null && !snapshot.getListedFrom().isAfter(timeWindow.getStart())
+                && snapshot.getListedTo() != null && !snapshot.getListedTo().isBefore(timeWindow.getEnd());
+    }
 
-            @Override
-            public List<com.google.api.services.calendar.model.Event> next() {
-                try {
-                    var response = googleCalendarApiClient.events().list(calendarId)
-                            .setPageToken(pageToken)
-                            .setMaxResults(250)
-                            .setShowDeleted(false)
-                            .setSingleEvents(true)
-                            .execute();
-
-                    pageToken = response.getNextPageToken();
-                    firstPage = false;
-
-                    return response.getItems();
-                } catch (IOException e) {
-                    throw new RuntimeException("Error calling google calendar api.", e);
+    private boolean listEventChanges(String calendarId, EventSnapshot snapshot, TimeWindow listingWindow) {
+        String pageToken = null;
+        String nextSyncToken;
+
+        do {
+            try {
+                var request = googleCalendarApiClient.events().list(calendarId)
+                        .setSyncToken(snapshot.getSyncToken())
+                        .setPageToken(pageToken)
+                        .setMaxResults(250)
+                        .setShowDeleted(true)
+                        .setSingleEvents(false);
+
+                if (listingWindow != null) {
+                    request.setTimeMin(new DateTime(listingWindow.getStart().toEpochMilli()));
+                    request.setTimeMax(new DateTime(listingWindow.getEnd().toEpochMilli()));
                 }
+
+                var response = execute("events.list", request);
+
+                if (response.getItems() != null)
+                    response.getItems().forEach(snapshot::putEvent);
+
+                pageToken = response.getNextPageToken();
+                nextSyncToken = response.getNextSyncToken();
+            } catch (GoogleJsonResponseException e) {
+                if (e.getStatusCode() == 410 && snapshot.getSyncToken() != null) {
+                    logger.info("Sync token of calendar \"" + calendarId + "\" expired.");
+                    return false;
+                }
+
+                throw toApiException(e);
+            } catch (IOException e) {
+                throw toApiException(e);
             }
-        };
+        } while (pageToken != null);
 
-        return StreamUtil.createStream(pageIterator)
-                .map(this::toEvent);
+        snapshot.setSyncToken(nextSyncToken);
+
+        return true;
     }
 
-    public String createEvent(String calendarId, Event event) {
-        try {
-            var googleEvent = getGoogleEvent(getPrimaryCalendarEmail(), event);
+    public static String getInstanceGoogleEventId(String seriesGoogleEventId, Instant originalStart) {
+        return seriesGoogleEventId + "_" + INSTANCE_ID_FORMATTER.format(originalStart);
+    }
 
-            googleEvent = googleCalendarApiClient.events().insert(calendarId, googleEvent).execute();
+    public EventMutationBatch createMutationBatch(String calendarId) {
+        var primaryCalendarEmail = getPrimaryCalendarEmail();
 
-            return googleEvent.getId();
-        } catch (IOException e) {
-            throw new RuntimeException("Error calling google calendar api.", e);
-        }
+        return new EventMutationBatch(googleCalendarApiClient, calendarId, accountKey, callExecutor,
+                mutationBatchExecutor, event -> getGoogleEvent(primaryCalendarEmail, event), this::invalidateMetadataCache);
     }
 
-    public void updateEvent(String calendarId, GoogleEvent event) {
-        try {
-            var googleEvent = getGoogleEvent(getPrimaryCalendarEmail(), event);
-            googleEvent.setId(event.getGoogleEventId());
-
-            googleCalendarApiClient.events().update(calendarId, googleEvent.getId(), googleEvent).execute();
-        } catch (IOException e) {
-            throw new RuntimeException("Error calling google calendar api.", e);
-        }
+    private <T> T execute(String methodName, AbstractGoogleClientRequest<T> request) throws IOException {
+        return callExecutor.execute(accountKey, methodName, request);
     }
 
-    public void removeEvent(String calendarId, String googleEventId) {
-        try {
-            googleCalendarApiClient.events().delete(calendarId, googleEventId).execute();
-        } catch (IOException e) {
-            throw new RuntimeException("Error calling google calendar api.", e);
+    private RuntimeException toApiException(IOException exception) {
+        if (exception instanceof GoogleJsonResponseException) {
+            var statusCode = ((GoogleJsonResponseException) exception).getStatusCode();
+
+            if (statusCode == 404 || statusCode == 410)
+                invalidateMetadataCache();
         }
+
+        return new RuntimeException("Error calling google calendar api.", exception);
     }
 
     private com.google.api.services.calendar.model.Event getGoogleEvent(String userEmailAddress, Event event) {
@@ -181,27 +234,69 @@ public class GoogleCalendarClient {
         googleEvent.setICalUID(event.getIcalUid());
         googleEvent.setSummary(event.getName());
         googleEvent.setDescription(event.getDescription());
-        googleEvent.setStart(toEventDateTime(event.getStart()));
-        googleEvent.setEnd(toEventDateTime(event.getEnd()));
+        googleEvent.setStart(toEventDateTime(event.getStart(), event.isRecurring()));
+        googleEvent.setEnd(toEventDateTime(event.getEnd(), event.isRecurring()));
+        googleEvent.setRecurrence(event.getRecurrence());
         googleEvent.setLocation(event.getLocation());
         googleEvent.setAttendees(Collections.singletonList(googleEventAttendee));
         googleEvent.setStatus("confirmed");
+        googleEvent.setExtendedProperties(new com.google.api.services.calendar.model.Event.ExtendedProperties()
+                .setPrivate(Collections.singletonMap(CONTENT_FINGERPRINT_PROPERTY, EventFingerprint.compute(event))));
+
+        if (event.isRecurrenceOverride())
+            googleEvent.setOriginalStartTime(toEventDateTime(event.getRecurrenceId(), false));
 
         return googleEvent;
     }
 
     private GoogleEvent toEvent(com.google.api.services.calendar.model.Event googleEvent) {
-        var event = new GoogleEvent();
-        event.setGoogleEventId(googleEvent.getId());
-        event.setIcalUid(googleEvent.getICalUID());
-        event.setName(googleEvent.getSummary());
-        event.setStart(toZonedDateTime(googleEvent.getStart()));
-        event.setEnd(toZonedDateTime(googleEvent.getEnd()));
-        event.setLocation(googleEvent.getLocation());
-        event.setDescription(googleEvent.getDescription());
-        event.setParticipation(toEventParticipation(googleEvent.getAttendees()));
-
-        return event;
+        var cancelled = "cancelled".equals(googleEvent.getStatus());
+        var contentFingerprint = getContentFingerprint(googleEvent);
+
+        if (contentFingerprint != null)
+            return new GoogleEvent(googleEvent.getId(), cancelled, contentFingerprint, Event.withIcalUid(googleEvent.getICalUID(), getOriginalStart(googleEvent)));
+
+        var content = new Event(googleEvent.getICalUID(),
+                googleEvent.getSummary(),
+                googleEvent.getDescription(),
+                googleEvent.getLocation(),
+                toZonedDateTime(googleEvent.getStart()),
+                toZonedDateTime(googleEvent.getEnd()),
+                toEventParticipation(googleEvent.getAttendees()),
+                googleEvent.getRecurrence(),
+                getOriginalStart(googleEvent));
+
+        return new GoogleEvent(googleEvent.getId(), cancelled, null, content);
+    }
+
+    private static Instant getStart(com.google.api.services.calendar.model.Event googleEvent) {
+        return toInstant(googleEvent.getStart());
+    }
+
+    private static ZonedDateTime getOriginalStart(com.google.api.services.calendar.model.Event googleEvent) {
+        var originalStart = toInstant(googleEvent.getOriginalStartTime());
+
+        return originalStart != null ? originalStart.atZone(ZoneOffset.UTC) : null;
+    }
+
+    private static boolean isRecurring(com.google.api.services.calendar.model.Event googleEvent) {
+        return googleEvent.getRecurrence() != null && !googleEvent.getRecurrence().isEmpty();
+    }
+
+    private static Instant toInstant(EventDateTime eventDateTime) {
+        if (eventDateTime == null || (eventDateTime.getDateTime() == null && eventDateTime.getDate() == null))
+            return null;
+
+        return Instant.ofEpochMilli(eventDateTime.getDateTime() != null ? eventDateTime.getDateTime().getValue() : eventDateTime.getDate().getValue());
+    }
+
+    private static String getContentFingerprint(com.google.api.services.calendar.model.Event googleEvent) {
+        var extendedProperties = googleEvent.getExtendedProperties();
+
+        if (extendedProperties == null || extendedProperties.getPrivate() == null)
+            return null;
+
+        return extendedProperties.getPrivate().get(CONTENT_FINGERPRINT_PROPERTY);
     }
 
     private EventParticipation toEventParticipation(List<EventAttendee> attendees) {
@@ -216,6 +311,9 @@ public class GoogleCalendarClient {
     }
 
     private ZonedDateTime toZonedDateTime(EventDateTime eventDateTime) {
+        if (eventDateTime == null || eventDateTime.getDateTime() == null)
+            return null;
+
         return ZonedDateTime.parse(eventDateTime.getDateTime().toStringRfc3339());
     }
 
@@ -227,35 +325,16 @@ public class GoogleCalendarClient {
         return new GoogleCalendar(calendarListEntry.getId(), calendarListEntry.getSummary(), ZoneId.of(calendarListEntry.getTimeZone()));
     }
 
-    private EventDateTime toEventDateTime(ZonedDateTime zonedDateTime) {
+    private EventDateTime toEventDateTime(ZonedDateTime zonedDateTime, boolean withTimeZone) {
         DateTimeFormatter rfc3339DateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX");
 
         DateTime googleDatetime = DateTime.parseRfc3339(zonedDateTime.format(rfc3339DateTimeFormatter));
         EventDateTime eventDateTime = new EventDateTime();
         eventDateTime.setDateTime(googleDatetime);
 
-        return eventDateTime;
-    }
+        if (withTimeZone && !(zonedDateTime.getZone() instanceof ZoneOffset))
+            eventDateTime.setTimeZone(zonedDateTime.getZone().getId());
 
-    private Calendar getGoogleCalendarApiClient(String applicationName, InputStream credentialInputStream,
-                                                String googleUserAccessToken, String googleUserRefreshToken) {
-        try {
-            var httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            var jsonFactory = JacksonFactory.getDefaultInstance();
-            GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(jsonFactory, new InputStreamReader(credentialInputStream));
-            var googleCredentials = new GoogleCredential.Builder()
-                    .setJsonFactory(jsonFactory)
-                    .setTransport(httpTransport)
-                    .setClientSecrets(clientSecrets)
-                    .build()
-                    .setAccessToken(googleUserAccessToken)
-                    .setRefreshToken(googleUserRefreshToken);
-
-            return new Calendar.Builder(httpTransport, jsonFactory, googleCredentials)
-                    .setApplicationName(applicationName)
-                    .build();
-        } catch (GeneralSecurityException | IOException e) {
-            throw new RuntimeException("Error creating google calendar api client", e);
-        }
+        return eventDateTime;
     }
 }
@@ -0,0 +1,131 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import com.google.api.client.googleapis.apache.GoogleApacheHttpTransport;
+import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.calendar.Calendar;
+import net.nlacombe.moirai.util.Sha256;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class GoogleCalendarClientFactory {
+
+    private static final String APPLICATION_NAME = "morai";
+    private static final String CREDENTIALS_CLASSPATH = "/google-client-secret.json";
+
+    private GoogleAccountMetadataCache metadataCache;
+    private EventSnapshotStore eventSnapshotStore;
+    private GoogleApiCallExecutor callExecutor;
+    private MutationBatchExecutor mutationBatchExecutor;
+    private String rootUrl;
+    private int maxCachedApiClients;
+    private JsonFactory jsonFactory;
+    private HttpTransport httpTransport;
+    private GoogleClientSecrets clientSecrets;
+    private Map<String, Calendar> apiClientsByAccountKey;
+
+    @Inject
+    public GoogleCalendarClientFactory(GoogleAccountMetadataCache metadataCache, EventSnapshotStore eventSnapshotStore,
+                                       GoogleApiCallExecutor callExecutor, MutationBatchExecutor mutationBatchExecutor,
+                                       @Value("${googleCalendar.api.rootUrl}") String rootUrl,
+                                       @Value("${googleCalendar.apiClientCache.maxSize}") int maxCachedApiClients) {
+
+        this.metadataCache = metadataCache;
+        this.eventSnapshotStore = eventSnapshotStore;
+        this.callExecutor = callExecutor;
+        this.mutationBatchExecutor = mutationBatchExecutor;
+        this.rootUrl = rootUrl;
+        this.maxCachedApiClients = maxCachedApiClients;
+        this.jsonFactory = JacksonFactory.getDefaultInstance();
+        this.apiClientsByAccountKey = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public GoogleCalendarClient create(String googleUserAccessToken, String googleUserRefreshToken) {
+        var accountKey = Sha256.toKey(googleUserRefreshToken);
+        var googleCalendarApiClient = getGoogleCalendarApiClient(accountKey, googleUserAccessToken, googleUserRefreshToken);
+
+        return new GoogleCalendarClient(googleCalendarApiClient, accountKey, metadataCache, eventSnapshotStore, callExecutor,
+                mutationBatchExecutor);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() throws IOException {
+        apiClientsByAccountKey.clear();
+
+        if (httpTransport != null)
+            httpTransport.shutdown();
+    }
+
+    private synchronized Calendar getGoogleCalendarApiClient(String accountKey, String googleUserAccessToken, String googleUserRefreshToken) {
+        var googleCalendarApiClient = apiClientsByAccountKey.get(accountKey);
+
+        if (googleCalendarApiClient == null) {
+            googleCalendarApiClient = createGoogleCalendarApiClient(googleUserAccessToken, googleUserRefreshToken);
+            apiClientsByAccountKey.put(accountKey, googleCalendarApiClient);
+
+            if (apiClientsByAccountKey.size() > maxCachedApiClients)
+                apiClientsByAccountKey.remove(apiClientsByAccountKey.keySet().iterator().next());
+        } else {
+            var credential = (GoogleCredential) googleCalendarApiClient.getRequestFactory().getInitializer();
+
+            if (credential.getAccessToken() == null)
+                credential.setAccessToken(googleUserAccessToken);
+        }
+
+        return googleCalendarApiClient;
+    }
+
+    private Calendar createGoogleCalendarApiClient(String googleUserAccessToken, String googleUserRefreshToken) {
+        var googleCredentials = new GoogleCredential.Builder()
+                .setJsonFactory(jsonFactory)
+                .setTransport(getHttpTransport())
+                .setClientSecrets(getClientSecrets())
+                .build()
+                .setAccessToken(googleUserAccessToken)
+                .setRefreshToken(googleUserRefreshToken);
+
+        return new Calendar.Builder(getHttpTransport(), jsonFactory, googleCredentials)
+                .setApplicationName(APPLICATION_NAME)
+                .setRootUrl(rootUrl)
+                .build();
+    }
+
+    private HttpTransport getHttpTransport() {
+        if (httpTransport == null) {
+            try {
+                httpTransport = GoogleApacheHttpTransport.newTrustedTransport();
+            } catch (GeneralSecurityException | IOException e) {
+                throw new RuntimeException("Error creating google calendar api http transport", e);
+            }
+        }
+
+        return httpTransport;
+    }
+
+    private GoogleClientSecrets getClientSecrets() {
+        if (clientSecrets == null) {
+            var clientSecretCredentialInputStream = getClass().getResourceAsStream(CREDENTIALS_CLASSPATH);
+
+            try (var reader = new InputStreamReader(clientSecretCredentialInputStream, StandardCharsets.UTF_8)) {
+                clientSecrets = GoogleClientSecrets.load(jsonFactory, reader);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading google client secrets", e);
+            }
+        }
+
+        return clientSecrets;
+    }
+}
@@ -4,13 +4,29 @@ import net.nlacombe.moirai.domain.Event;
 
 public class GoogleEvent extends Event {
 
-    private String googleEventId;
+    private final String googleEventId;
+    private final boolean cancelled;
+    private final String contentFingerprint;
+
+    public GoogleEvent(String googleEventId, boolean cancelled, String contentFingerprint, Event content) {
+        super(content);
+
+        this.googleEventId = googleEventId;
+        this.cancelled = cancelled;
+        this.contentFingerprint = contentFingerprint;
+    }
+
+    public GoogleEvent withContentOf(Event content) {
+        return new GoogleEvent(googleEventId, cancelled, null, content);
+    }
 
     @Override
     public String toString() {
         return "GoogleEvent{" +
                 " " + super.toString() +
                 "googleEventId='" + googleEventId + '\'' +
+                ", cancelled=" + cancelled +
+                ", contentFingerprint='" + contentFingerprint + '\'' +
                 '}';
     }
 
@@ -18,7 +34,11 @@ public class GoogleEvent extends Event {
         return googleEventId;
     }
 
-    public void setGoogleEventId(String googleEventId) {
-        this.googleEventId = googleEventId;
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getContentFingerprint() {
+        return contentFingerprint;
     }
 }
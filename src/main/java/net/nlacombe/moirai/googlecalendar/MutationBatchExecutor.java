@@ -0,0 +1,94 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+@Component
+public class MutationBatchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(MutationBatchExecutor.class);
+
+    private ExecutorService executor;
+    private int maxParallelBatchesPerAccount;
+    private Map<String, Semaphore> accountSemaphores;
+
+    @Inject
+    public MutationBatchExecutor(@Value("${googleCalendar.mutations.workerThreads}") int workerThreads,
+                                 @Value("${googleCalendar.mutations.maxParallelBatchesPerAccount}") int maxParallelBatchesPerAccount) {
+
+        this.executor = createExecutor(workerThreads);
+        this.maxParallelBatchesPerAccount = maxParallelBatchesPerAccount;
+        this.accountSemaphores = new ConcurrentHashMap<>();
+    }
+
+    public int getMaxParallelBatchesPerAccount() {
+        return maxParallelBatchesPerAccount;
+    }
+
+    public void runAll(String accountKey, List<Runnable> batches) {
+        if (batches.size() == 1) {
+            batches.get(0).run();
+            return;
+        }
+
+        var accountSemaphore = accountSemaphores.computeIfAbsent(accountKey, key -> new Semaphore(maxParallelBatchesPerAccount));
+        var batchFutures = new ArrayList<CompletableFuture<Void>>();
+
+        for (var batch : batches) {
+            accountSemaphore.acquireUninterruptibly();
+
+            try {
+                batchFutures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        batch.run();
+                    } finally {
+                        accountSemaphore.release();
+                    }
+                }, executor));
+            } catch (RuntimeException e) {
+                accountSemaphore.release();
+                throw e;
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(batchFutures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ExecutorService createExecutor(int workerThreads) {
+        try {
+            var virtualThreadExecutor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("Using virtual threads for event mutation batches.");
+
+            return virtualThreadExecutor;
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(workerThreads, new CustomizableThreadFactory("mutation-batch-"));
+        }
+    }
+}
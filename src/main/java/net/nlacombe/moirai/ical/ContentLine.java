@@ -0,0 +1,96 @@
+package net.nlacombe.moirai.ical;
+
+class ContentLine {
+
+    private String name;
+    private String parameters;
+    private String value;
+
+    private ContentLine(String name, String parameters, String value) {
+        this.name = name;
+        this.parameters = parameters;
+        this.value = value;
+    }
+
+    static ContentLine parse(String line) {
+        var valueSeparatorIndex = getValueSeparatorIndex(line);
+
+        if (valueSeparatorIndex < 0)
+            return null;
+
+        var nameAndParameters = line.substring(0, valueSeparatorIndex);
+        var parameterSeparatorIndex = nameAndParameters.indexOf(';');
+        var name = parameterSeparatorIndex < 0 ? nameAndParameters : nameAndParameters.substring(0, parameterSeparatorIndex);
+        var parameters = parameterSeparatorIndex < 0 ? null : nameAndParameters.substring(parameterSeparatorIndex + 1);
+
+        return new ContentLine(name.toUpperCase(), parameters, line.substring(valueSeparatorIndex + 1));
+    }
+
+    private static int getValueSeparatorIndex(String line) {
+        var inQuotes = false;
+
+        for (var i = 0; i < line.length(); i++) {
+            var character = line.charAt(i);
+
+            if (character == '"')
+                inQuotes = !inQuotes;
+            else if (character == ':' && !inQuotes)
+                return i;
+        }
+
+        return -1;
+    }
+
+    boolean isBegin(String componentName) {
+        return name.equals("BEGIN") && value.trim().equalsIgnoreCase(componentName);
+    }
+
+    boolean isEnd(String componentName) {
+        return name.equals("END") && value.trim().equalsIgnoreCase(componentName);
+    }
+
+    String getParameter(String parameterName) {
+        if (parameters == null)
+            return null;
+
+        for (var parameter : parameters.split(";")) {
+            var equalsIndex = parameter.indexOf('=');
+
+            if (equalsIndex > 0 && parameter.substring(0, equalsIndex).equalsIgnoreCase(parameterName))
+                return parameter.substring(equalsIndex + 1).replace("\"", "");
+        }
+
+        return null;
+    }
+
+    ContentLine withParameter(String parameterName, String parameterValue) {
+        var newParameters = new StringBuilder(parameterName).append('=').append(parameterValue);
+
+        if (parameters != null) {
+            for (var parameter : parameters.split(";")) {
+                var equalsIndex = parameter.indexOf('=');
+
+                if (equalsIndex <= 0 || !parameter.substring(0, equalsIndex).equalsIgnoreCase(parameterName))
+                    newParameters.append(';').append(parameter);
+            }
+        }
+
+        return new ContentLine(name, newParameters.toString(), value);
+    }
+
+    String toIcalLine() {
+        return parameters != null ? name + ";" + parameters + ":" + value : name + ":" + value;
+    }
+
+    long getEstimatedSize() {
+        return HeapSize.OBJECT_BYTES + 3 * HeapSize.REFERENCE_BYTES + HeapSize.of(name) + HeapSize.of(parameters) + HeapSize.of(value);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getValue() {
+        return value;
+    }
+}
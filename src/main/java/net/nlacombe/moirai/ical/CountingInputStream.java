@@ -0,0 +1,60 @@
+package net.nlacombe.moirai.ical;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+class CountingInputStream extends FilterInputStream {
+
+    private long maxBytes;
+    private long count;
+
+    CountingInputStream(InputStream inputStream, long maxBytes) {
+        super(inputStream);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var value = super.read();
+
+        if (value >= 0)
+            addCount(1);
+
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        var readCount = super.read(buffer, offset, length);
+
+        if (readCount > 0)
+            addCount(readCount);
+
+        return readCount;
+    }
+
+    @Override
+    public long skip(long byteCount) throws IOException {
+        var skipCount = super.skip(byteCount);
+        addCount(skipCount);
+
+        return skipCount;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void addCount(long byteCount) throws IOException {
+        count += byteCount;
+
+        if (count > maxBytes)
+            throw new IOException("ICal feed is larger than " + maxBytes + " bytes once decoded");
+    }
+
+    long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,374 @@
+package net.nlacombe.moirai.ical;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.nlacombe.moirai.domain.TimeWindow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+@Component
+public class FeedFetcher {
+
+    private static final String UNKNOWN_HOST_TAG = "unknown";
+
+    private MeterRegistry meterRegistry;
+    private HttpClient httpClient;
+    private Duration readTimeout;
+    private Duration totalTimeout;
+    private int maxBodyBytes;
+    private Map<String, CompletableFuture<IcalFeed>> inFlightFetchesByUrl;
+
+    @Inject
+    public FeedFetcher(MeterRegistry meterRegistry,
+                       @Value("${ical.fetch.connectTimeoutMillis}") long connectTimeoutMillis,
+                       @Value("${ical.fetch.readTimeoutMillis}") long readTimeoutMillis,
+                       @Value("${ical.fetch.totalTimeoutMillis}") long totalTimeoutMillis,
+                       @Value("${ical.fetch.maxBodyBytes}") int maxBodyBytes) {
+
+        this.meterRegistry = meterRegistry;
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.totalTimeout = Duration.ofMillis(totalTimeoutMillis);
+        this.maxBodyBytes = maxBodyBytes;
+        this.inFlightFetchesByUrl = new ConcurrentHashMap<>();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+    }
+
+    public IcalFeed fetch(String icalUrl, FeedValidators previousValidators, TimeWindow timeWindow) {
+        var sharedFetch = new CompletableFuture<IcalFeed>();
+        var inFlightFetch = inFlightFetchesByUrl.putIfAbsent(icalUrl, sharedFetch);
+
+        if (inFlightFetch != null) {
+            var sharedFeed = inFlightFetch.handle((feed, e) -> e == null ? feed : null).join();
+
+            if (sharedFeed != null && sharedFeed.getParsedFeed() != null && sharedFeed.getParsedFeed().containsAllEventsIn(timeWindow)) {
+                var validators = sharedFeed.getValidators();
+
+                return new IcalFeed(icalUrl, !validators.hasSameContent(previousValidators), sharedFeed.getParsedFeed(), validators);
+            }
+
+            return fetchFromUrl(icalUrl, previousValidators, timeWindow);
+        }
+
+        try {
+            var feed = fetchFromUrl(icalUrl, previousValidators, timeWindow);
+            sharedFetch.complete(feed);
+
+            return feed;
+        } catch (RuntimeException e) {
+            sharedFetch.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            inFlightFetchesByUrl.remove(icalUrl, sharedFetch);
+        }
+    }
+
+    private IcalFeed fetchFromUrl(String icalUrl, FeedValidators previousValidators, TimeWindow timeWindow) {
+        var uri = URI.create(icalUrl);
+        var host = uri.getHost() != null ? uri.getHost() : UNKNOWN_HOST_TAG;
+        var fetchTimer = Timer.start(meterRegistry);
+        var status = "IO_ERROR";
+        var bytesReceived = new AtomicLong();
+
+        try {
+            var response = send(uri, previousValidators, bytesReceived);
+            status = String.valueOf(response.statusCode());
+
+            try (var body = response.body()) {
+                if (response.statusCode() == 304)
+                    return new IcalFeed(icalUrl, false, null, previousValidators);
+
+                if (response.statusCode() < 200 || response.statusCode() >= 300)
+                    throw new RuntimeException("Unexpected HTTP status " + response.statusCode() + " reading ICal URL \"" + icalUrl + "\"");
+
+                var contentEncoding = response.headers().firstValue("Content-Encoding").orElse("identity").trim().toLowerCase();
+                var parsedFeed = IcalReader.parse(icalUrl, new CountingInputStream(decode(body, contentEncoding), maxBodyBytes), timeWindow);
+                recordBytes(host, "wire", bytesReceived.get());
+                recordBytes(host, "decoded", parsedFeed.getContentLength());
+
+                var validators = new FeedValidators(response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null), parsedFeed.getContentHash(), Instant.now());
+
+                return new IcalFeed(icalUrl, !validators.hasSameContent(previousValidators), parsedFeed, validators);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading ICal URL \"" + icalUrl + "\"", e);
+            }
+        } finally {
+            fetchTimer.stop(Timer.builder("moirai.feed.fetch")
+                    .tag("host", host)
+                    .tag("status", status)
+                    .register(meterRegistry));
+        }
+    }
+
+    private HttpResponse<InputStream> send(URI uri, FeedValidators previousValidators, AtomicLong bytesReceived) {
+        var requestBuilder = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(readTimeout)
+                .header("Accept-Encoding", "gzip, deflate");
+
+        if (previousValidators != null && previousValidators.getEtag() != null)
+            requestBuilder.header("If-None-Match", previousValidators.getEtag());
+
+        if (previousValidators != null && previousValidators.getLastModified() != null)
+            requestBuilder.header("If-Modified-Since", previousValidators.getLastModified());
+
+        var deadline = Instant.now().plus(totalTimeout);
+        var responseFuture = httpClient.sendAsync(requestBuilder.build(),
+                responseInfo -> new StreamingBodySubscriber(maxBodyBytes, bytesReceived, readTimeout, totalTimeout, deadline));
+
+        try {
+            return awaitResponse(uri, responseFuture, deadline);
+        } catch (InterruptedException e) {
+            responseFuture.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException("Interrupted reading ICal URL \"" + uri + "\"", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error reading ICal URL \"" + uri + "\"", e.getCause());
+        }
+    }
+
+    private HttpResponse<InputStream> awaitResponse(URI uri, CompletableFuture<HttpResponse<InputStream>> responseFuture, Instant deadline)
+            throws InterruptedException, ExecutionException {
+
+        var remaining = Duration.between(Instant.now(), deadline);
+
+        try {
+            return responseFuture.get(Math.min(readTimeout.toMillis(), remaining.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            responseFuture.cancel(true);
+            throw new RuntimeException("No response received for " + readTimeout.toMillis() + " ms reading ICal URL \"" + uri + "\"");
+        }
+    }
+
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        switch (contentEncoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body);
+            case "deflate":
+                return inflate(body);
+            case "identity":
+                return body;
+            default:
+                throw new RuntimeException("Unsupported ICal feed content encoding \"" + contentEncoding + "\"");
+        }
+    }
+
+    private static InputStream inflate(InputStream body) throws IOException {
+        var bufferedBody = new BufferedInputStream(body);
+        bufferedBody.mark(2);
+
+        var compressionMethod = bufferedBody.read();
+        var flags = bufferedBody.read();
+        bufferedBody.reset();
+
+        var zlibWrapped = compressionMethod >= 0 && flags >= 0 && (compressionMethod & 0x0f) == 8 && ((compressionMethod << 8) | flags) % 31 == 0;
+
+        return zlibWrapped ? new InflaterInputStream(bufferedBody) : new InflaterInputStream(bufferedBody, new Inflater(true));
+    }
+
+    private void recordBytes(String host, String type, long byteCount) {
+        DistributionSummary.builder("moirai.feed.bytes")
+                .baseUnit("bytes")
+                .tag("host", host)
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(byteCount);
+    }
+
+    private static class StreamingBodySubscriber implements HttpResponse.BodySubscriber<InputStream> {
+
+        private static final List<ByteBuffer> END_OF_BODY = List.of();
+
+        private int maxBodyBytes;
+        private AtomicLong bytesReceived;
+        private Duration readTimeout;
+        private Duration totalTimeout;
+        private Instant deadline;
+        private BlockingQueue<Object> received;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean closed;
+
+        StreamingBodySubscriber(int maxBodyBytes, AtomicLong bytesReceived, Duration readTimeout, Duration totalTimeout, Instant deadline) {
+            this.maxBodyBytes = maxBodyBytes;
+            this.bytesReceived = bytesReceived;
+            this.readTimeout = readTimeout;
+            this.totalTimeout = totalTimeout;
+            this.deadline = deadline;
+            this.received = new LinkedBlockingQueue<>();
+        }
+
+        @Override
+        public CompletionStage<InputStream> getBody() {
+            return CompletableFuture.completedFuture(new BodyInputStream());
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+
+            if (closed)
+                subscription.cancel();
+            else
+                subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            var byteCount = buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+
+            if (bytesReceived.addAndGet(byteCount) > maxBodyBytes) {
+                subscription.cancel();
+                received.add(new IOException("ICal feed is larger than " + maxBodyBytes + " bytes"));
+                return;
+            }
+
+            received.add(buffers);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            received.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            received.add(END_OF_BODY);
+        }
+
+        private Object take() throws IOException {
+            var remaining = Duration.between(Instant.now(), deadline);
+
+            if (remaining.isNegative() || remaining.isZero()) {
+                cancel();
+                throw new IOException("Timed out after " + totalTimeout.toMillis() + " ms reading ICal feed");
+            }
+
+            Object item;
+
+            try {
+                item = received.poll(Math.min(readTimeout.toMillis(), remaining.toMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted reading ICal feed");
+            }
+
+            if (item != null)
+                return item;
+
+            cancel();
+
+            if (remaining.compareTo(readTimeout) > 0)
+                throw new IOException("No data received for " + readTimeout.toMillis() + " ms reading ICal feed");
+
+            throw new IOException("Timed out after " + totalTimeout.toMillis() + " ms reading ICal feed");
+        }
+
+        private void cancel() {
+            closed = true;
+
+            if (subscription != null)
+                subscription.cancel();
+        }
+
+        private class BodyInputStream extends InputStream {
+
+            private Iterator<ByteBuffer> buffers = Collections.emptyIterator();
+            private ByteBuffer buffer;
+            private boolean endOfBody;
+
+            @Override
+            public int read() throws IOException {
+                var singleByte = new byte[1];
+
+                return read(singleByte, 0, 1) < 0 ? -1 : singleByte[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                if (length == 0)
+                    return 0;
+
+                while (buffer == null || !buffer.hasRemaining()) {
+                    if (buffers.hasNext()) {
+                        buffer = buffers.next();
+                        continue;
+                    }
+
+                    if (endOfBody || closed)
+                        return -1;
+
+                    var item = take();
+
+                    if (item == END_OF_BODY) {
+                        endOfBody = true;
+                        return -1;
+                    }
+
+                    if (item instanceof IOException)
+                        throw (IOException) item;
+
+                    if (item instanceof Throwable)
+                        throw new IOException((Throwable) item);
+
+                    @SuppressWarnings("unchecked")
+                    var receivedBuffers = (List<ByteBuffer>) item;
+                    buffers = receivedBuffers.iterator();
+                    subscription.request(1);
+                }
+
+                var readCount = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, readCount);
+
+                return readCount;
+            }
+
+            @Override
+            public void close() {
+                if (!endOfBody && !closed)
+                    cancel();
+
+                received.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.nlacombe.moirai.ical;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class FeedValidatorStore {
+
+    private Map<String, FeedValidators> validatorsBySyncKey;
+    private Duration maxValidatorAge;
+
+    @Inject
+    public FeedValidatorStore(@Value("${ical.feedValidators.maxAgeSeconds}") long maxValidatorAgeSeconds) {
+        this.validatorsBySyncKey = new ConcurrentHashMap<>();
+        this.maxValidatorAge = Duration.ofSeconds(maxValidatorAgeSeconds);
+    }
+
+    public FeedValidators get(String syncKey) {
+        var validators = validatorsBySyncKey.get(syncKey);
+
+        if (validators == null)
+            return null;
+
+        if (isExpired(validators)) {
+            validatorsBySyncKey.remove(syncKey, validators);
+            return null;
+        }
+
+        return validators;
+    }
+
+    public void put(String syncKey, FeedValidators validators) {
+        validatorsBySyncKey.values().removeIf(this::isExpired);
+        validatorsBySyncKey.put(syncKey, validators);
+    }
+
+    private boolean isExpired(FeedValidators validators) {
+        return validators.getFetchedAt().plus(maxValidatorAge).isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,48 @@
+package net.nlacombe.moirai.ical;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+public class FeedValidators {
+
+    private String etag;
+    private String lastModified;
+    private byte[] contentHash;
+    private Instant fetchedAt;
+
+    public FeedValidators(String etag, String lastModified, byte[] contentHash, Instant fetchedAt) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public boolean hasSameContent(FeedValidators validators) {
+        return validators != null && Arrays.equals(contentHash, validators.contentHash);
+    }
+
+    @Override
+    public String toString() {
+        return "FeedValidators{" +
+                "etag='" + etag + '\'' +
+                ", lastModified='" + lastModified + '\'' +
+                ", fetchedAt=" + fetchedAt +
+                '}';
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public byte[] getContentHash() {
+        return contentHash;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+}
@@ -0,0 +1,20 @@
+package net.nlacombe.moirai.ical;
+
+import java.util.List;
+
+class HeapSize {
+
+    static final long OBJECT_BYTES = 16;
+    static final long REFERENCE_BYTES = 8;
+    static final long MAP_ENTRY_BYTES = 48;
+
+    private static final long STRING_BYTES = 40;
+
+    static long of(String text) {
+        return text != null ? STRING_BYTES + 2L * text.length() : 0;
+    }
+
+    static long of(List<String> texts) {
+        return texts != null ? OBJECT_BYTES + texts.size() * REFERENCE_BYTES + texts.stream().mapToLong(HeapSize::of).sum() : 0;
+    }
+}
@@ -0,0 +1,202 @@
+package net.nlacombe.moirai.ical;
+
+import net.nlacombe.moirai.domain.TimeWindow;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+class IcalEventIterator implements Iterator<ParsedIcalEvent>, Closeable {
+
+    private static final Set<String> RECURRENCE_PROPERTY_NAMES = Set.of("RRULE", "RDATE", "EXDATE", "EXRULE");
+
+    private BufferedReader reader;
+    private TimeWindow parseWindow;
+    private String nextLine;
+    private ParsedIcalEvent nextEvent;
+    private Map<String, ZoneId> timeZonesById;
+    private Map<String, ZoneId> zonesByTzid;
+
+    IcalEventIterator(BufferedReader reader, TimeWindow parseWindow) {
+        this.reader = reader;
+        this.parseWindow = parseWindow;
+        this.timeZonesById = new HashMap<>();
+        this.zonesByTzid = new HashMap<>();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextEvent == null)
+            nextEvent = readNextEvent();
+
+        return nextEvent != null;
+    }
+
+    @Override
+    public ParsedIcalEvent next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        var event = nextEvent;
+        nextEvent = null;
+
+        return event;
+    }
+
+    Map<String, ZoneId> getTimeZonesById() {
+        return timeZonesById;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ParsedIcalEvent readNextEvent() {
+        Map<String, ContentLine> eventProperties = null;
+        List<String> recurrenceLines = null;
+        var nestedComponentDepth = 0;
+        String line;
+
+        while ((line = readUnfoldedLine()) != null) {
+            var contentLine = ContentLine.parse(line);
+
+            if (contentLine == null)
+                continue;
+
+            if (eventProperties == null) {
+                if (contentLine.isBegin("VEVENT")) {
+                    eventProperties = new HashMap<>();
+                    recurrenceLines = new ArrayList<>();
+                } else if (contentLine.isBegin("VTIMEZONE")) {
+                    readTimeZone();
+                }
+            } else if (contentLine.getName().equals("BEGIN")) {
+                nestedComponentDepth++;
+            } else if (contentLine.getName().equals("END") && nestedComponentDepth > 0) {
+                nestedComponentDepth--;
+            } else if (contentLine.isEnd("VEVENT")) {
+                return isInParseWindow(eventProperties, recurrenceLines) ? ParsedIcalEvent.of(eventProperties, recurrenceLines)
+                        : ParsedIcalEvent.outOfWindow(eventProperties);
+            } else if (nestedComponentDepth == 0 && RECURRENCE_PROPERTY_NAMES.contains(contentLine.getName())) {
+                recurrenceLines.add(contentLine.toIcalLine());
+            } else if (nestedComponentDepth == 0) {
+                eventProperties.putIfAbsent(contentLine.getName(), contentLine);
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isInParseWindow(Map<String, ContentLine> eventProperties, List<String> recurrenceLines) {
+        var start = eventProperties.get("DTSTART");
+
+        if (parseWindow == null || start == null)
+            return true;
+
+        try {
+            var zone = getZone(start.getParameter("TZID"));
+            var recurring = !eventProperties.containsKey("RECURRENCE-ID") && !recurrenceLines.isEmpty();
+
+            return IcalEventMapper.isInWindow(parseWindow, IcalReader.parseDateTime(start.getValue(), zone).toInstant(),
+                    recurring ? recurrenceLines : null, zone);
+        } catch (DateTimeException e) {
+            return true;
+        }
+    }
+
+    private ZoneId getZone(String tzid) {
+        if (tzid == null)
+            return ZoneOffset.UTC;
+
+        if (timeZonesById.containsKey(tzid))
+            return timeZonesById.get(tzid);
+
+        return zonesByTzid.computeIfAbsent(tzid, unresolvedTzid -> Objects.requireNonNullElse(IcalTimeZone.resolve(unresolvedTzid), ZoneOffset.UTC));
+    }
+
+    private void readTimeZone() {
+        String tzid = null;
+        String location = null;
+        var observances = new ArrayList<Map<String, ContentLine>>();
+        Map<String, ContentLine> observance = null;
+        String line;
+
+        while ((line = readUnfoldedLine()) != null) {
+            var contentLine = ContentLine.parse(line);
+
+            if (contentLine == null)
+                continue;
+
+            if (contentLine.isEnd("VTIMEZONE")) {
+                break;
+            } else if (contentLine.isBegin("STANDARD") || contentLine.isBegin("DAYLIGHT")) {
+                observance = new HashMap<>();
+            } else if (contentLine.isEnd("STANDARD") || contentLine.isEnd("DAYLIGHT")) {
+                if (observance != null)
+                    observances.add(observance);
+
+                observance = null;
+            } else if (observance != null) {
+                observance.putIfAbsent(contentLine.getName(), contentLine);
+            } else if (contentLine.getName().equals("TZID")) {
+                tzid = contentLine.getValue().trim();
+            } else if (contentLine.getName().equals("X-LIC-LOCATION")) {
+                location = contentLine.getValue().trim();
+            }
+        }
+
+        if (tzid == null)
+            return;
+
+        var zone = new IcalTimeZone(tzid, location, observances).resolve();
+
+        if (zone != null)
+            timeZonesById.put(tzid, zone);
+    }
+
+    private String readUnfoldedLine() {
+        try {
+            var line = nextLine != null ? nextLine : reader.readLine();
+
+            if (line == null)
+                return null;
+
+            nextLine = reader.readLine();
+
+            if (nextLine == null || !isContinuationLine(nextLine))
+                return line;
+
+            var unfoldedLine = new StringBuilder(line);
+
+            while (nextLine != null && isContinuationLine(nextLine)) {
+                unfoldedLine.append(nextLine, 1, nextLine.length());
+                nextLine = reader.readLine();
+            }
+
+            return unfoldedLine.toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading calendar from ICal URL", e);
+        }
+    }
+
+    private static boolean isContinuationLine(String line) {
+        return !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t');
+    }
+}
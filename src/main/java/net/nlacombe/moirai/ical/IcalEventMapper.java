@@ -0,0 +1,182 @@
+package net.nlacombe.moirai.ical;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.TimeWindow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAmount;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+class IcalEventMapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(IcalEventMapper.class);
+
+    private String icalUidPrefix;
+    private ZoneId timeZone;
+    private TimeWindow timeWindow;
+    private Consumer<String> outOfWindowIcalUidConsumer;
+    private Map<String, ZoneId> feedTimeZonesById;
+    private Map<String, ZoneId> zonesByTzid;
+
+    IcalEventMapper(String icalUidPrefix, ZoneId timeZone, TimeWindow timeWindow, Consumer<String> outOfWindowIcalUidConsumer,
+                    Map<String, ZoneId> feedTimeZonesById) {
+
+        this.icalUidPrefix = icalUidPrefix;
+        this.timeZone = timeZone;
+        this.timeWindow = timeWindow;
+        this.outOfWindowIcalUidConsumer = outOfWindowIcalUidConsumer;
+        this.feedTimeZonesById = feedTimeZonesById;
+        this.zonesByTzid = new HashMap<>();
+    }
+
+    Event toEventIfInWindow(ParsedIcalEvent parsedEvent) {
+        var icalUid = icalUidPrefix.isEmpty() ? parsedEvent.getIcalUid() : icalUidPrefix + parsedEvent.getIcalUid();
+        var recurrenceId = parsedEvent.getRecurrenceId() != null ? toZonedDateTime(parsedEvent.getRecurrenceId()) : null;
+
+        if (parsedEvent.isOutOfWindow())
+            return skipOutOfWindow(icalUid, recurrenceId);
+
+        var recurring = recurrenceId == null && parsedEvent.getRecurrence() != null;
+        var start = recurring ? toSeriesZonedDateTime(parsedEvent.getStart()) : toZonedDateTime(parsedEvent.getStart());
+
+        if (timeWindow != null && !isInWindow(timeWindow, start.toInstant(), recurring ? parsedEvent.getRecurrence() : null, start.getZone()))
+            return skipOutOfWindow(icalUid, recurrenceId);
+
+        return new Event(icalUid,
+                parsedEvent.getName(),
+                parsedEvent.getDescription(),
+                parsedEvent.getLocation(),
+                start,
+                getEnd(parsedEvent, start),
+                parsedEvent.getParticipation(),
+                recurring ? getRecurrence(parsedEvent.getRecurrence()) : null,
+                recurrenceId);
+    }
+
+    static boolean isInWindow(TimeWindow timeWindow, Instant start, List<String> recurrenceLines, ZoneId zone) {
+        if (recurrenceLines == null)
+            return timeWindow.contains(start);
+
+        if (start.isAfter(timeWindow.getEnd()))
+            return false;
+
+        var recurrenceEnd = getRecurrenceEnd(recurrenceLines, zone);
+
+        return recurrenceEnd == null || recurrenceEnd.isAfter(timeWindow.getStart());
+    }
+
+    private Event skipOutOfWindow(String icalUid, ZonedDateTime recurrenceId) {
+        outOfWindowIcalUidConsumer.accept(recurrenceId != null ? Event.getSyncUid(icalUid, recurrenceId.toInstant()) : icalUid);
+
+        return null;
+    }
+
+    private List<String> getRecurrence(List<String> recurrenceLines) {
+        return recurrenceLines.stream()
+                .map(this::withResolvedTzid)
+                .collect(Collectors.toList());
+    }
+
+    private String withResolvedTzid(String recurrenceLine) {
+        var contentLine = ContentLine.parse(recurrenceLine);
+        var tzid = contentLine != null ? contentLine.getParameter("TZID") : null;
+
+        if (tzid == null)
+            return recurrenceLine;
+
+        var zone = getZone(tzid);
+
+        if (zone.getId().equals(tzid) || zone instanceof ZoneOffset)
+            return recurrenceLine;
+
+        return contentLine.withParameter("TZID", zone.getId()).toIcalLine();
+    }
+
+    private static Instant getRecurrenceEnd(List<String> recurrenceLines, ZoneId zone) {
+        Instant recurrenceEnd = null;
+
+        for (var recurrenceLine : recurrenceLines) {
+            if (!recurrenceLine.startsWith("RRULE"))
+                continue;
+
+            var untilIndex = recurrenceLine.indexOf("UNTIL=");
+
+            if (untilIndex < 0)
+                return null;
+
+            var untilEndIndex = recurrenceLine.indexOf(';', untilIndex);
+            var until = IcalReader.parseDateTime(recurrenceLine.substring(untilIndex + 6, untilEndIndex < 0 ? recurrenceLine.length() : untilEndIndex), zone).toInstant();
+
+            if (recurrenceEnd == null || until.isAfter(recurrenceEnd))
+                recurrenceEnd = until;
+        }
+
+        return recurrenceEnd;
+    }
+
+    private ZonedDateTime getEnd(ParsedIcalEvent parsedEvent, ZonedDateTime start) {
+        if (parsedEvent.getEnd() != null)
+            return toZonedDateTime(parsedEvent.getEnd());
+
+        if (parsedEvent.getDuration() != null)
+            return start.plus(toDuration(parsedEvent.getDuration()));
+
+        return start;
+    }
+
+    private ZonedDateTime toZonedDateTime(ContentLine contentLine) {
+        return toSourceZonedDateTime(contentLine).withZoneSameInstant(timeZone);
+    }
+
+    private ZonedDateTime toSeriesZonedDateTime(ContentLine contentLine) {
+        return toSourceZonedDateTime(contentLine).withZoneSameInstant(getZone(contentLine.getParameter("TZID")));
+    }
+
+    private ZonedDateTime toSourceZonedDateTime(ContentLine contentLine) {
+        if (contentLine == null)
+            throw new RuntimeException("ICal event is missing a start date");
+
+        return IcalReader.parseDateTime(contentLine.getValue(), getZone(contentLine.getParameter("TZID")));
+    }
+
+    private ZoneId getZone(String tzid) {
+        if (tzid == null)
+            return timeZone;
+
+        return zonesByTzid.computeIfAbsent(tzid, this::resolveZone);
+    }
+
+    private ZoneId resolveZone(String tzid) {
+        var zone = feedTimeZonesById.get(tzid);
+
+        if (zone == null)
+            zone = IcalTimeZone.resolve(tzid);
+
+        if (zone == null) {
+            logger.warn("Unknown ICal time zone \"" + tzid + "\", reading its dates in " + timeZone + " instead.");
+            return timeZone;
+        }
+
+        return zone;
+    }
+
+    private static TemporalAmount toDuration(String icalDuration) {
+        var weekIndex = icalDuration.indexOf('W');
+
+        if (weekIndex > 0)
+            return Period.ofWeeks(Integer.parseInt(icalDuration.substring(icalDuration.indexOf('P') + 1, weekIndex)));
+
+        return Duration.parse(icalDuration);
+    }
+}
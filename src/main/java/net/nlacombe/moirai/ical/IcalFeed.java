@@ -0,0 +1,32 @@
+package net.nlacombe.moirai.ical;
+
+public class IcalFeed {
+
+    private String url;
+    private boolean modified;
+    private ParsedIcalFeed parsedFeed;
+    private FeedValidators validators;
+
+    public IcalFeed(String url, boolean modified, ParsedIcalFeed parsedFeed, FeedValidators validators) {
+        this.url = url;
+        this.modified = modified;
+        this.parsedFeed = parsedFeed;
+        this.validators = validators;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    public ParsedIcalFeed getParsedFeed() {
+        return parsedFeed;
+    }
+
+    public FeedValidators getValidators() {
+        return validators;
+    }
+}
@@ -1,66 +1,53 @@
 package net.nlacombe.moirai.ical;
 
-import net.fortuna.ical4j.data.CalendarBuilder;
-import net.fortuna.ical4j.data.ParserException;
-import net.fortuna.ical4j.model.Calendar;
-import net.fortuna.ical4j.model.component.VEvent;
-import net.nlacombe.moirai.domain.Event;
-import net.nlacombe.moirai.domain.EventParticipation;
+import net.nlacombe.moirai.domain.TimeWindow;
+import net.nlacombe.moirai.util.Sha256;
 
-import java.io.IOException;
+import java.io.BufferedReader;
 import java.io.InputStream;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 
 public class IcalReader {
 
-    public static List<Event> readFromUrl(String icalUrl, ZoneId timeZone) {
-        var icalInputStream = getHttpInputStream(icalUrl);
-        var calendar = getCalendar(icalInputStream);
+    private static final DateTimeFormatter ICAL_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter ICAL_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final Duration PARSE_WINDOW_MARGIN = Duration.ofDays(1);
 
-        return calendar.getComponents().stream()
-                .filter(component -> component instanceof VEvent)
-                .map(component -> (VEvent) component)
-                .map(icalEvent -> toEvent(timeZone, icalEvent))
-                .collect(Collectors.toList());
+    public static ParsedIcalFeed parse(String url, InputStream inputStream) {
+        return parse(url, inputStream, null);
     }
 
-    private static Event toEvent(ZoneId timeZone, VEvent icalEvent) {
-        var icalPartstatCode = icalEvent.getProperty("PARTSTAT").getValue();
+    public static ParsedIcalFeed parse(String url, InputStream inputStream, TimeWindow timeWindow) {
+        var parseWindow = timeWindow != null ? timeWindow.widen(PARSE_WINDOW_MARGIN) : null;
+        var countingInputStream = new CountingInputStream(inputStream, Long.MAX_VALUE);
+        var digestInputStream = new DigestInputStream(countingInputStream, Sha256.newDigest());
+        var parsedEvents = new ArrayList<ParsedIcalEvent>();
 
-        var event = new Event();
-        event.setIcalUid(icalEvent.getUid().getValue());
-        event.setName(icalEvent.getSummary().getValue());
-        event.setDescription(icalEvent.getDescription().getValue());
-        event.setLocation(icalEvent.getLocation() != null ? icalEvent.getLocation().getValue() : null);
-        event.setStart(icalEvent.getStartDate().getDate().toInstant().atZone(timeZone));
-        event.setEnd(icalEvent.getEndDate().getDate().toInstant().atZone(timeZone));
-        event.setParticipation(EventParticipation.fromIcalCode(icalPartstatCode));
+        try (var eventIterator = new IcalEventIterator(new BufferedReader(new InputStreamReader(digestInputStream, StandardCharsets.UTF_8)), parseWindow)) {
+            eventIterator.forEachRemaining(parsedEvents::add);
 
-        return event;
-    }
-
-    private static Calendar getCalendar(InputStream icalInputStream) {
-        try {
-            return new CalendarBuilder().build(icalInputStream);
-        } catch (IOException | ParserException e) {
-            throw new RuntimeException("Error reading or parsing calendar from ICal URL (must be an URL to an ICS file)", e);
+            return new ParsedIcalFeed(url, digestInputStream.getMessageDigest().digest(), (int) countingInputStream.getCount(), parsedEvents,
+                    eventIterator.getTimeZonesById(), parseWindow);
         }
     }
 
-    private static InputStream getHttpInputStream(String url) {
-        try {
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).build();
+    public static ZonedDateTime parseDateTime(String value, ZoneId zone) {
+        if (value.length() == 8)
+            return LocalDate.parse(value, ICAL_DATE_FORMATTER).atStartOfDay(zone);
 
-            return client.send(request, HttpResponse.BodyHandlers.ofInputStream()).body();
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        if (value.endsWith("Z"))
+            return LocalDateTime.parse(value.substring(0, value.length() - 1), ICAL_DATE_TIME_FORMATTER).atZone(ZoneOffset.UTC);
+
+        return LocalDateTime.parse(value, ICAL_DATE_TIME_FORMATTER).atZone(zone);
     }
 }
@@ -0,0 +1,313 @@
+package net.nlacombe.moirai.ical;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+class IcalTimeZone {
+
+    private static final Map<String, String> WINDOWS_ZONE_IDS = loadWindowsZoneIds();
+    private static final Map<String, Optional<ZoneId>> ZONES_BY_DEFINITION = new ConcurrentHashMap<>();
+
+    private String tzid;
+    private String location;
+    private List<Map<String, ContentLine>> observances;
+
+    IcalTimeZone(String tzid, String location, List<Map<String, ContentLine>> observances) {
+        this.tzid = tzid;
+        this.location = location;
+        this.observances = List.copyOf(observances);
+    }
+
+    static ZoneId resolve(String tzid) {
+        if (tzid == null || tzid.isBlank())
+            return null;
+
+        var trimmedTzid = tzid.trim();
+        var windowsZoneId = WINDOWS_ZONE_IDS.get(trimmedTzid);
+
+        if (windowsZoneId != null)
+            return ZoneId.of(windowsZoneId);
+
+        var zone = toZoneId(trimmedTzid);
+
+        if (zone != null)
+            return zone;
+
+        var segments = trimmedTzid.split("/");
+
+        for (var i = 1; i < segments.length; i++) {
+            zone = toZoneId(String.join("/", List.of(segments).subList(i, segments.length)));
+
+            if (zone != null && zone.getId().contains("/"))
+                return zone;
+        }
+
+        return null;
+    }
+
+    ZoneId resolve() {
+        var zone = location != null ? resolve(location) : null;
+
+        if (zone == null)
+            zone = resolve(tzid);
+
+        if (zone == null)
+            zone = ZONES_BY_DEFINITION.computeIfAbsent(getDefinitionKey(), definitionKey -> Optional.ofNullable(resolveFromObservances())).orElse(null);
+
+        return zone;
+    }
+
+    private ZoneId resolveFromObservances() {
+        var currentObservances = getCurrentObservances();
+
+        if (currentObservances.isEmpty())
+            return null;
+
+        var offsets = currentObservances.stream().map(Observance::getOffsetTo).collect(Collectors.toSet());
+
+        if (offsets.size() == 1)
+            return toFixedOffsetZone(offsets.iterator().next());
+
+        var year = Year.now().getValue();
+        var transitions = new ArrayList<Transition>();
+
+        for (var observance : currentObservances) {
+            for (var transitionYear = year - 1; transitionYear <= year + 1; transitionYear++) {
+                var onset = observance.getOnset(transitionYear);
+
+                if (onset == null)
+                    return null;
+
+                transitions.add(new Transition(onset, observance.getOffsetTo()));
+            }
+        }
+
+        transitions.sort(Comparator.comparing(transition -> transition.instant));
+
+        var sampleInstants = new ArrayList<Instant>();
+        var yearStart = LocalDateTime.of(year, 1, 1, 12, 0).toInstant(ZoneOffset.UTC);
+
+        for (var day = 0; day < 366; day++)
+            sampleInstants.add(yearStart.plus(day, ChronoUnit.DAYS));
+
+        for (var zoneId : new TreeSet<>(ZoneId.getAvailableZoneIds())) {
+            if (!zoneId.contains("/") || zoneId.startsWith("SystemV/"))
+                continue;
+
+            var rules = ZoneId.of(zoneId).getRules();
+
+            if (sampleInstants.stream().allMatch(instant -> rules.getOffset(instant).equals(getOffset(transitions, instant))))
+                return ZoneId.of(zoneId);
+        }
+
+        return null;
+    }
+
+    private List<Observance> getCurrentObservances() {
+        var parsedObservances = new ArrayList<Observance>();
+
+        for (var observanceProperties : observances) {
+            var observance = Observance.of(observanceProperties);
+
+            if (observance != null)
+                parsedObservances.add(observance);
+        }
+
+        var recurringObservances = parsedObservances.stream()
+                .filter(observance -> observance.rrule != null && !observance.rrule.containsKey("UNTIL"))
+                .collect(Collectors.toList());
+
+        if (!recurringObservances.isEmpty())
+            return recurringObservances;
+
+        return parsedObservances.stream()
+                .max(Comparator.comparing(observance -> observance.start))
+                .map(List::of)
+                .orElse(List.of());
+    }
+
+    private static ZoneOffset getOffset(List<Transition> transitions, Instant instant) {
+        ZoneOffset offset = null;
+
+        for (var transition : transitions) {
+            if (transition.instant.isAfter(instant))
+                break;
+
+            offset = transition.offset;
+        }
+
+        return offset;
+    }
+
+    private static ZoneId toFixedOffsetZone(ZoneOffset offset) {
+        var totalSeconds = offset.getTotalSeconds();
+
+        if (totalSeconds == 0)
+            return ZoneId.of("Etc/UTC");
+
+        if (totalSeconds % 3600 != 0)
+            return offset;
+
+        var hours = totalSeconds / 3600;
+
+        return ZoneId.of("Etc/GMT" + (hours > 0 ? "-" : "+") + Math.abs(hours));
+    }
+
+    private String getDefinitionKey() {
+        return observances.stream()
+                .map(observance -> observance.values().stream()
+                        .map(ContentLine::toIcalLine)
+                        .sorted()
+                        .collect(Collectors.joining("\n")))
+                .sorted()
+                .collect(Collectors.joining("\n\n"));
+    }
+
+    private static ZoneId toZoneId(String zoneId) {
+        try {
+            return ZoneId.of(zoneId, ZoneId.SHORT_IDS);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> loadWindowsZoneIds() {
+        var windowsZoneIds = new Properties();
+
+        try (var inputStream = IcalTimeZone.class.getResourceAsStream("/windows-zones.properties")) {
+            if (inputStream != null)
+                windowsZoneIds.load(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return windowsZoneIds.stringPropertyNames().stream()
+                .collect(Collectors.toUnmodifiableMap(windowsZoneName -> windowsZoneName, windowsZoneIds::getProperty));
+    }
+
+    private static class Observance {
+
+        private LocalDateTime start;
+        private ZoneOffset offsetFrom;
+        private ZoneOffset offsetTo;
+        private Map<String, String> rrule;
+
+        private Observance(LocalDateTime start, ZoneOffset offsetFrom, ZoneOffset offsetTo, Map<String, String> rrule) {
+            this.start = start;
+            this.offsetFrom = offsetFrom;
+            this.offsetTo = offsetTo;
+            this.rrule = rrule;
+        }
+
+        static Observance of(Map<String, ContentLine> properties) {
+            var start = properties.get("DTSTART");
+            var offsetFrom = properties.get("TZOFFSETFROM");
+            var offsetTo = properties.get("TZOFFSETTO");
+
+            if (start == null || offsetTo == null)
+                return null;
+
+            try {
+                var parsedOffsetTo = ZoneOffset.of(offsetTo.getValue().trim());
+                var parsedOffsetFrom = offsetFrom != null ? ZoneOffset.of(offsetFrom.getValue().trim()) : parsedOffsetTo;
+                var rrule = properties.get("RRULE");
+
+                return new Observance(IcalReader.parseDateTime(start.getValue().trim(), ZoneOffset.UTC).toLocalDateTime(),
+                        parsedOffsetFrom, parsedOffsetTo, rrule != null ? parseRule(rrule.getValue()) : null);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+
+        private static Map<String, String> parseRule(String rule) {
+            return List.of(rule.trim().split(";")).stream()
+                    .filter(rulePart -> rulePart.indexOf('=') > 0)
+                    .collect(Collectors.toMap(rulePart -> rulePart.substring(0, rulePart.indexOf('=')).toUpperCase(),
+                            rulePart -> rulePart.substring(rulePart.indexOf('=') + 1), (first, second) -> first));
+        }
+
+        Instant getOnset(int year) {
+            try {
+                return getRuleOnset(year);
+            } catch (NumberFormatException | DateTimeException e) {
+                return null;
+            }
+        }
+
+        private Instant getRuleOnset(int year) {
+            if (rrule == null)
+                return start.toInstant(offsetFrom);
+
+            if (!"YEARLY".equalsIgnoreCase(rrule.get("FREQ")))
+                return null;
+
+            var month = rrule.containsKey("BYMONTH") ? Integer.parseInt(rrule.get("BYMONTH")) : start.getMonthValue();
+            var date = start.toLocalDate().withDayOfMonth(1).withYear(year).withMonth(month);
+            var byDay = rrule.get("BYDAY");
+            var byMonthDay = rrule.get("BYMONTHDAY");
+
+            if (byDay != null) {
+                var dayOfWeek = toDayOfWeek(byDay.substring(byDay.length() - 2));
+                var ordinal = byDay.length() > 2 ? Integer.parseInt(byDay.substring(0, byDay.length() - 2).replace("+", "")) : 1;
+
+                if (dayOfWeek == null)
+                    return null;
+
+                date = ordinal < 0 ? date.with(TemporalAdjusters.lastInMonth(dayOfWeek)).minusWeeks(-ordinal - 1)
+                        : date.with(TemporalAdjusters.dayOfWeekInMonth(ordinal, dayOfWeek));
+            } else if (byMonthDay != null) {
+                date = date.withDayOfMonth(Integer.parseInt(byMonthDay.split(",")[0]));
+            } else {
+                date = date.withDayOfMonth(Math.min(start.getDayOfMonth(), date.lengthOfMonth()));
+            }
+
+            return date.atTime(start.toLocalTime()).toInstant(offsetFrom);
+        }
+
+        ZoneOffset getOffsetTo() {
+            return offsetTo;
+        }
+
+        private static DayOfWeek toDayOfWeek(String icalDay) {
+            switch (icalDay.toUpperCase()) {
+                case "MO": return DayOfWeek.MONDAY;
+                case "TU": return DayOfWeek.TUESDAY;
+                case "WE": return DayOfWeek.WEDNESDAY;
+                case "TH": return DayOfWeek.THURSDAY;
+                case "FR": return DayOfWeek.FRIDAY;
+                case "SA": return DayOfWeek.SATURDAY;
+                case "SU": return DayOfWeek.SUNDAY;
+                default: return null;
+            }
+        }
+    }
+
+    private static class Transition {
+
+        private Instant instant;
+        private ZoneOffset offset;
+
+        Transition(Instant instant, ZoneOffset offset) {
+            this.instant = instant;
+            this.offset = offset;
+        }
+    }
+}
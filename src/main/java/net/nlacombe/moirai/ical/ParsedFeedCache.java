@@ -0,0 +1,121 @@
+package net.nlacombe.moirai.ical;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class ParsedFeedCache {
+
+    private MeterRegistry meterRegistry;
+    private Duration ttl;
+    private long maxBytes;
+    private long cachedBytes;
+    private Map<String, CachedParsedFeed> parsedFeedsByKey;
+
+    @Inject
+    public ParsedFeedCache(MeterRegistry meterRegistry,
+                           @Value("${ical.parsedFeedCache.ttlSeconds}") long ttlSeconds,
+                           @Value("${ical.parsedFeedCache.maxBytes}") long maxBytes) {
+
+        this.meterRegistry = meterRegistry;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxBytes = maxBytes;
+        this.parsedFeedsByKey = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public ParsedIcalFeed get(IcalFeed feed) {
+        if (feed.getParsedFeed() != null)
+            return put(feed.getParsedFeed());
+
+        if (feed.getValidators() == null || feed.getValidators().getContentHash() == null)
+            return null;
+
+        CachedParsedFeed cachedParsedFeed;
+
+        synchronized (this) {
+            cachedParsedFeed = getUnexpired(getKey(feed.getUrl(), feed.getValidators().getContentHash()));
+        }
+
+        incrementLookups(cachedParsedFeed != null ? "hit" : "miss");
+
+        return cachedParsedFeed != null ? cachedParsedFeed.parsedFeed : null;
+    }
+
+    public synchronized boolean contains(IcalFeed feed) {
+        if (feed.getValidators() == null || feed.getValidators().getContentHash() == null)
+            return false;
+
+        return getUnexpired(getKey(feed.getUrl(), feed.getValidators().getContentHash())) != null;
+    }
+
+    private synchronized ParsedIcalFeed put(ParsedIcalFeed parsedFeed) {
+        var key = getKey(parsedFeed.getUrl(), parsedFeed.getContentHash());
+        var cachedParsedFeed = getUnexpired(key);
+
+        if (cachedParsedFeed != null && cachedParsedFeed.parsedFeed.covers(parsedFeed.getParseWindow()))
+            return cachedParsedFeed.parsedFeed;
+
+        if (cachedParsedFeed != null) {
+            parsedFeedsByKey.remove(key);
+            cachedBytes -= cachedParsedFeed.parsedFeed.getEstimatedSize();
+        }
+
+        if (parsedFeed.getEstimatedSize() > maxBytes)
+            return parsedFeed;
+
+        parsedFeedsByKey.put(key, new CachedParsedFeed(parsedFeed));
+        cachedBytes += parsedFeed.getEstimatedSize();
+
+        var leastRecentlyUsed = parsedFeedsByKey.values().iterator();
+
+        while (cachedBytes > maxBytes) {
+            cachedBytes -= leastRecentlyUsed.next().parsedFeed.getEstimatedSize();
+            leastRecentlyUsed.remove();
+        }
+
+        return parsedFeed;
+    }
+
+    private CachedParsedFeed getUnexpired(String key) {
+        var cachedParsedFeed = parsedFeedsByKey.get(key);
+
+        if (cachedParsedFeed == null || cachedParsedFeed.cachedAt.plus(ttl).isAfter(Instant.now()))
+            return cachedParsedFeed;
+
+        parsedFeedsByKey.remove(key);
+        cachedBytes -= cachedParsedFeed.parsedFeed.getEstimatedSize();
+
+        return null;
+    }
+
+    private void incrementLookups(String result) {
+        Counter.builder("moirai.feed.parseCache")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String getKey(String url, byte[] contentHash) {
+        return url + " " + Base64.getEncoder().encodeToString(contentHash);
+    }
+
+    private static class CachedParsedFeed {
+
+        private ParsedIcalFeed parsedFeed;
+        private Instant cachedAt;
+
+        CachedParsedFeed(ParsedIcalFeed parsedFeed) {
+            this.parsedFeed = parsedFeed;
+            this.cachedAt = Instant.now();
+        }
+    }
+}
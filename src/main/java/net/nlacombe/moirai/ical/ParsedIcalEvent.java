@@ -0,0 +1,139 @@
+package net.nlacombe.moirai.ical;
+
+import net.nlacombe.moirai.domain.EventParticipation;
+
+import java.util.List;
+import java.util.Map;
+
+class ParsedIcalEvent {
+
+    private final String icalUid;
+    private final String name;
+    private final String description;
+    private final String location;
+    private final EventParticipation participation;
+    private final ContentLine start;
+    private final ContentLine end;
+    private final String duration;
+    private final ContentLine recurrenceId;
+    private final List<String> recurrence;
+    private final boolean outOfWindow;
+
+    private ParsedIcalEvent(Map<String, ContentLine> eventProperties, List<String> recurrenceLines) {
+        var icalPartstatCode = getText(eventProperties, "PARTSTAT");
+
+        this.icalUid = getText(eventProperties, "UID");
+        this.name = getText(eventProperties, "SUMMARY");
+        this.description = getText(eventProperties, "DESCRIPTION");
+        this.location = getText(eventProperties, "LOCATION");
+        this.participation = icalPartstatCode != null ? EventParticipation.fromIcalCode(icalPartstatCode) : EventParticipation.NEEDS_ACTION;
+        this.start = eventProperties.get("DTSTART");
+        this.end = eventProperties.get("DTEND");
+        this.duration = eventProperties.containsKey("DURATION") ? eventProperties.get("DURATION").getValue() : null;
+        this.recurrenceId = eventProperties.get("RECURRENCE-ID");
+        this.recurrence = !recurrenceLines.isEmpty() ? List.copyOf(recurrenceLines) : null;
+        this.outOfWindow = false;
+    }
+
+    private ParsedIcalEvent(String icalUid, ContentLine recurrenceId) {
+        this.icalUid = icalUid;
+        this.name = null;
+        this.description = null;
+        this.location = null;
+        this.participation = null;
+        this.start = null;
+        this.end = null;
+        this.duration = null;
+        this.recurrenceId = recurrenceId;
+        this.recurrence = null;
+        this.outOfWindow = true;
+    }
+
+    static ParsedIcalEvent of(Map<String, ContentLine> eventProperties, List<String> recurrenceLines) {
+        return new ParsedIcalEvent(eventProperties, recurrenceLines);
+    }
+
+    static ParsedIcalEvent outOfWindow(Map<String, ContentLine> eventProperties) {
+        return new ParsedIcalEvent(getText(eventProperties, "UID"), eventProperties.get("RECURRENCE-ID"));
+    }
+
+    private static String getText(Map<String, ContentLine> eventProperties, String propertyName) {
+        var contentLine = eventProperties.get(propertyName);
+
+        return contentLine != null ? unescapeText(contentLine.getValue()) : null;
+    }
+
+    private static String unescapeText(String text) {
+        if (text.indexOf('\\') < 0)
+            return text;
+
+        var unescapedText = new StringBuilder(text.length());
+
+        for (var i = 0; i < text.length(); i++) {
+            var character = text.charAt(i);
+
+            if (character == '\\' && i + 1 < text.length()) {
+                var escapedCharacter = text.charAt(++i);
+                unescapedText.append(escapedCharacter == 'n' || escapedCharacter == 'N' ? '\n' : escapedCharacter);
+            } else {
+                unescapedText.append(character);
+            }
+        }
+
+        return unescapedText.toString();
+    }
+
+    String getIcalUid() {
+        return icalUid;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    String getLocation() {
+        return location;
+    }
+
+    EventParticipation getParticipation() {
+        return participation;
+    }
+
+    ContentLine getStart() {
+        return start;
+    }
+
+    ContentLine getEnd() {
+        return end;
+    }
+
+    String getDuration() {
+        return duration;
+    }
+
+    ContentLine getRecurrenceId() {
+        return recurrenceId;
+    }
+
+    List<String> getRecurrence() {
+        return recurrence;
+    }
+
+    long getEstimatedSize() {
+        return HeapSize.OBJECT_BYTES + 11 * HeapSize.REFERENCE_BYTES +
+                HeapSize.of(icalUid) + HeapSize.of(name) + HeapSize.of(description) + HeapSize.of(location) + HeapSize.of(duration) +
+                getEstimatedSize(start) + getEstimatedSize(end) + getEstimatedSize(recurrenceId) + HeapSize.of(recurrence);
+    }
+
+    private static long getEstimatedSize(ContentLine contentLine) {
+        return contentLine != null ? contentLine.getEstimatedSize() : 0;
+    }
+
+    boolean isOutOfWindow() {
+        return outOfWindow;
+    }
+}
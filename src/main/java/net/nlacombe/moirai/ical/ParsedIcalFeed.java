@@ -0,0 +1,102 @@
+package net.nlacombe.moirai.ical;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.TimeWindow;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class ParsedIcalFeed {
+
+    private static final Duration MAX_ZONE_OFFSET = Duration.ofSeconds(ZoneOffset.MAX.getTotalSeconds());
+
+    private final String url;
+    private final byte[] contentHash;
+    private final int contentLength;
+    private final List<ParsedIcalEvent> events;
+    private final Map<String, ZoneId> timeZonesById;
+    private final TimeWindow parseWindow;
+    private final long estimatedSize;
+    private final Instant parsedAt;
+
+    ParsedIcalFeed(String url, byte[] contentHash, int contentLength, List<ParsedIcalEvent> events, Map<String, ZoneId> timeZonesById,
+                   TimeWindow parseWindow) {
+
+        this.url = url;
+        this.contentHash = contentHash;
+        this.contentLength = contentLength;
+        this.events = List.copyOf(events);
+        this.timeZonesById = Map.copyOf(timeZonesById);
+        this.parseWindow = parseWindow;
+        this.estimatedSize = HeapSize.OBJECT_BYTES + HeapSize.of(url) + contentHash.length +
+                events.size() * HeapSize.REFERENCE_BYTES + events.stream().mapToLong(ParsedIcalEvent::getEstimatedSize).sum() +
+                timeZonesById.size() * HeapSize.MAP_ENTRY_BYTES + timeZonesById.keySet().stream().mapToLong(HeapSize::of).sum();
+        this.parsedAt = Instant.now();
+    }
+
+    public Stream<Event> stream(String icalUidPrefix, ZoneId timeZone, TimeWindow timeWindow, Consumer<String> outOfWindowIcalUidConsumer) {
+        var eventMapper = new IcalEventMapper(icalUidPrefix, timeZone, timeWindow, outOfWindowIcalUidConsumer, timeZonesById);
+
+        return events.stream()
+                .map(eventMapper::toEventIfInWindow)
+                .filter(Objects::nonNull);
+    }
+
+    public boolean containsAllEventsIn(TimeWindow timeWindow) {
+        return covers(timeWindow != null ? timeWindow.widen(MAX_ZONE_OFFSET) : null);
+    }
+
+    boolean covers(TimeWindow timeWindow) {
+        if (parseWindow == null)
+            return true;
+
+        return timeWindow != null && !parseWindow.getStart().isAfter(timeWindow.getStart()) && !parseWindow.getEnd().isBefore(timeWindow.getEnd());
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedIcalFeed{" +
+                "url='" + url + '\'' +
+                ", contentLength=" + contentLength +
+                ", estimatedSize=" + estimatedSize +
+                ", events=" + events.size() +
+                ", parseWindow=" + parseWindow +
+                ", parsedAt=" + parsedAt +
+                '}';
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public byte[] getContentHash() {
+        return contentHash;
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    public int getEventCount() {
+        return events.size();
+    }
+
+    public TimeWindow getParseWindow() {
+        return parseWindow;
+    }
+
+    public Instant getParsedAt() {
+        return parsedAt;
+    }
+}
@@ -0,0 +1,79 @@
+package net.nlacombe.moirai.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.nlacombe.moirai.sync.EventDiff;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component
+public class SyncMetrics {
+
+    private static final String NO_SUBSCRIPTION_TAG = "none";
+
+    private MeterRegistry meterRegistry;
+
+    @Inject
+    public SyncMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordPhase(String subscriptionId, String phase, Timer.Sample sample) {
+        sample.stop(Timer.builder("moirai.sync.phase")
+                .tag("subscription", getSubscriptionTag(subscriptionId))
+                .tag("phase", phase)
+                .register(meterRegistry));
+    }
+
+    public void recordFeedBytes(String subscriptionId, long byteCount) {
+        DistributionSummary.builder("moirai.sync.feed.bytes")
+                .baseUnit("bytes")
+                .tag("subscription", getSubscriptionTag(subscriptionId))
+                .register(meterRegistry)
+                .record(byteCount);
+    }
+
+    public void recordEventsRead(String subscriptionId, int eventCount) {
+        DistributionSummary.builder("moirai.sync.feed.events")
+                .tag("subscription", getSubscriptionTag(subscriptionId))
+                .register(meterRegistry)
+                .record(eventCount);
+    }
+
+    public void recordDiff(String subscriptionId, EventDiff eventDiff) {
+        recordDiffSize(subscriptionId, "create", eventDiff.getEventsToCreate().size());
+        recordDiffSize(subscriptionId, "update", eventDiff.getEventsToUpdate().size());
+        recordDiffSize(subscriptionId, "revert", eventDiff.getEventsToRevert().size());
+        recordDiffSize(subscriptionId, "delete", eventDiff.getEventsToDelete().size());
+        recordDiffSize(subscriptionId, "unchanged", eventDiff.getUnchangedEventCount());
+    }
+
+    public void incrementMutations(String subscriptionId, String operation, String outcome) {
+        meterRegistry.counter("moirai.sync.mutations",
+                "subscription", getSubscriptionTag(subscriptionId), "operation", operation, "outcome", outcome)
+                .increment();
+    }
+
+    public void incrementRuns(String subscriptionId, String outcome) {
+        meterRegistry.counter("moirai.sync.runs", "subscription", getSubscriptionTag(subscriptionId), "outcome", outcome)
+                .increment();
+    }
+
+    private void recordDiffSize(String subscriptionId, String change, int eventCount) {
+        DistributionSummary.builder("moirai.sync.diff.events")
+                .tag("subscription", getSubscriptionTag(subscriptionId))
+                .tag("change", change)
+                .register(meterRegistry)
+                .record(eventCount);
+    }
+
+    private static String getSubscriptionTag(String subscriptionId) {
+        return subscriptionId != null ? subscriptionId : NO_SUBSCRIPTION_TAG;
+    }
+}
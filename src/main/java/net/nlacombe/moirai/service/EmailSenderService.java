@@ -1,51 +1,203 @@
 package net.nlacombe.moirai.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import net.nlacombe.moirai.util.Sha256;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.mail.MessagingException;
+import javax.mail.Transport;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import java.io.UnsupportedEncodingException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+@Lazy
 @Service
 public class EmailSenderService {
 
+    private static final int STACK_SIGNATURE_DEPTH = 8;
+    private static final int MAX_SIGNATURE_CAUSES = 10;
+    private static final Duration DRAIN_INTERVAL = Duration.ofSeconds(10);
     private static final Logger logger = LoggerFactory.getLogger(EmailSenderService.class);
 
-    private JavaMailSender mailSender;
+    private JavaMailSenderImpl mailSender;
+    private MeterRegistry meterRegistry;
     private String senderEmail;
     private String senderName;
     private String errorEmailAddress;
+    private Duration digestInterval;
+    private int maxDistinctErrors;
+    private BlockingQueue<ErrorOccurrence> errorQueue;
+    private AtomicLong droppedErrorCount;
+    private Map<String, ErrorDigestEntry> pendingErrorsByFingerprint;
+    private long pendingDroppedErrorCount;
+    private Instant pendingSince;
+    private Instant nextDigestAt;
+    private Transport transport;
+    private ScheduledExecutorService digestExecutor;
 
     @Inject
-    public EmailSenderService(JavaMailSender mailSender, @Value("${email.sender.emailAddress}") String senderEmail,
+    public EmailSenderService(JavaMailSenderImpl mailSender, MeterRegistry meterRegistry,
+                              @Value("${email.sender.emailAddress}") String senderEmail,
                               @Value("${email.sender.name}") String senderName,
-                              @Value("${email.error.emailAddress}") String errorEmailAddress) {
+                              @Value("${email.error.emailAddress}") String errorEmailAddress,
+                              @Value("${email.error.digestIntervalSeconds}") long digestIntervalSeconds,
+                              @Value("${email.error.queueCapacity}") int errorQueueCapacity,
+                              @Value("${email.error.digest.maxDistinctErrors}") int maxDistinctErrors) {
 
         this.mailSender = mailSender;
+        this.meterRegistry = meterRegistry;
         this.senderEmail = senderEmail;
         this.senderName = senderName;
         this.errorEmailAddress = errorEmailAddress;
+        this.digestInterval = Duration.ofSeconds(digestIntervalSeconds);
+        this.maxDistinctErrors = maxDistinctErrors;
+        this.errorQueue = new ArrayBlockingQueue<>(errorQueueCapacity);
+        this.droppedErrorCount = new AtomicLong();
+        this.pendingErrorsByFingerprint = new LinkedHashMap<>();
+        this.nextDigestAt = Instant.now();
+
+        var threadFactory = new CustomizableThreadFactory("error-digest-");
+        threadFactory.setDaemon(true);
+        this.digestExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.digestExecutor.scheduleWithFixedDelay(this::drainAndSendDigest, DRAIN_INTERVAL.toMillis(), DRAIN_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS);
     }
 
-    @Async
     public void sendErrorEmail(Exception exception) {
-        String subject = "Error during calendar sync";
+        if (errorQueue.offer(new ErrorOccurrence(exception, Instant.now()))) {
+            meterRegistry.counter("moirai.errors.reported", "result", "queued").increment();
+        } else {
+            droppedErrorCount.incrementAndGet();
+            meterRegistry.counter("moirai.errors.reported", "result", "dropped").increment();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        digestExecutor.shutdownNow();
+
+        synchronized (this) {
+            nextDigestAt = Instant.now();
+            drainAndSendDigest();
+            closeTransport();
+        }
+    }
+
+    private static String getFingerprint(Throwable throwable) {
+        var signature = new StringBuilder();
+        var cause = throwable;
 
-        String body = "";
+        for (var causeCount = 0; cause != null && causeCount < MAX_SIGNATURE_CAUSES; causeCount++) {
+            signature.append(cause.getClass().getName()).append('\n');
 
-        body += "<h4>Stacktrace</h4>";
-        body += "<pre>" + ExceptionUtils.getStackTrace(exception) + "</pre>";
+            var stackTrace = cause.getStackTrace();
 
-        sendEmail(errorEmailAddress, subject, body);
+            for (var i = 0; i < stackTrace.length && i < STACK_SIGNATURE_DEPTH; i++)
+                signature.append(stackTrace[i].getClassName()).append('.').append(stackTrace[i].getMethodName()).append('\n');
+
+            cause = cause.getCause() != cause ? cause.getCause() : null;
+        }
+
+        var digest = Sha256.hash(signature.toString());
+        var fingerprint = new StringBuilder();
+
+        for (var i = 0; i < 6; i++)
+            fingerprint.append(String.format("%02x", digest[i]));
+
+        return fingerprint.toString();
+    }
+
+    private synchronized void drainAndSendDigest() {
+        try {
+            drainErrorQueue();
+
+            if (Instant.now().isBefore(nextDigestAt) || (pendingErrorsByFingerprint.isEmpty() && pendingDroppedErrorCount == 0))
+                return;
+
+            nextDigestAt = Instant.now().plus(digestInterval);
+
+            var body = getDigestBody();
+            var subject = "Calendar sync errors: " + getPendingErrorCount() + " in " + pendingErrorsByFingerprint.size() + " distinct errors";
+
+            sendEmail(errorEmailAddress, subject, body);
+
+            pendingErrorsByFingerprint.clear();
+            pendingDroppedErrorCount = 0;
+            pendingSince = null;
+        } catch (RuntimeException e) {
+            logger.error("Error sending error digest email.", e);
+        }
+    }
+
+    private void drainErrorQueue() {
+        var errorOccurrences = new ArrayList<ErrorOccurrence>();
+        errorQueue.drainTo(errorOccurrences);
+        pendingDroppedErrorCount += droppedErrorCount.getAndSet(0);
+
+        for (var errorOccurrence : errorOccurrences) {
+            var fingerprint = getFingerprint(errorOccurrence.exception);
+            var digestEntry = pendingErrorsByFingerprint.get(fingerprint);
+
+            if (pendingSince == null)
+                pendingSince = errorOccurrence.occurredAt;
+
+            if (digestEntry == null && pendingErrorsByFingerprint.size() >= maxDistinctErrors) {
+                pendingDroppedErrorCount++;
+                meterRegistry.counter("moirai.errors.reported", "result", "dropped").increment();
+            } else if (digestEntry == null) {
+                pendingErrorsByFingerprint.put(fingerprint, new ErrorDigestEntry(fingerprint, errorOccurrence));
+            } else {
+                digestEntry.add(errorOccurrence);
+            }
+        }
+    }
+
+    private long getPendingErrorCount() {
+        return pendingErrorsByFingerprint.values().stream().mapToLong(digestEntry -> digestEntry.count).sum();
+    }
+
+    private String getDigestBody() {
+        var body = "";
+
+        body += "<h3>" + getPendingErrorCount() + " errors since " + pendingSince + "</h3>";
+
+        if (pendingDroppedErrorCount > 0)
+            body += "<p>" + pendingDroppedErrorCount + " more errors were dropped because the error queue was full.</p>";
+
+        var digestEntries = new ArrayList<>(pendingErrorsByFingerprint.values());
+        digestEntries.sort(Comparator.comparingLong((ErrorDigestEntry digestEntry) -> digestEntry.count).reversed());
+
+        for (var digestEntry : digestEntries) {
+            body += "<h4>" + digestEntry.count + " x " + HtmlUtils.htmlEscape(String.valueOf(digestEntry.sampleException)) + "</h4>";
+            body += "<p>Fingerprint " + digestEntry.fingerprint + ", first seen " + digestEntry.firstSeenAt + ", last seen " + digestEntry.lastSeenAt + "</p>";
+            body += "<h4>Stacktrace</h4>";
+            body += "<pre>" + HtmlUtils.htmlEscape(ExceptionUtils.getStackTrace(digestEntry.sampleException)) + "</pre>";
+        }
+
+        return body;
     }
 
     private void sendEmail(String recipientEmailAddress, String emailSubject, String emailBody) {
@@ -60,9 +212,73 @@ public class EmailSenderService {
 
             logger.debug("Sending email: from: \"" + senderEmail + "\", recipientEmailAddress: \"" + recipientEmailAddress + "\", emailSubject: \"" + emailSubject + "\"");
 
-            mailSender.send(message);
+            send(message);
         } catch (MessagingException | UnsupportedEncodingException exception) {
             throw new RuntimeException(exception);
         }
     }
+
+    private void send(MimeMessage message) throws MessagingException {
+        message.saveChanges();
+
+        if (transport != null && transport.isConnected()) {
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+                return;
+            } catch (MessagingException e) {
+                logger.debug("Pooled SMTP connection failed, reconnecting: " + e);
+                closeTransport();
+            }
+        }
+
+        transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    private void closeTransport() {
+        if (transport == null)
+            return;
+
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Error closing SMTP connection: " + e);
+        }
+
+        transport = null;
+    }
+
+    private static class ErrorOccurrence {
+
+        private Exception exception;
+        private Instant occurredAt;
+
+        ErrorOccurrence(Exception exception, Instant occurredAt) {
+            this.exception = exception;
+            this.occurredAt = occurredAt;
+        }
+    }
+
+    private static class ErrorDigestEntry {
+
+        private String fingerprint;
+        private Exception sampleException;
+        private long count;
+        private Instant firstSeenAt;
+        private Instant lastSeenAt;
+
+        ErrorDigestEntry(String fingerprint, ErrorOccurrence errorOccurrence) {
+            this.fingerprint = fingerprint;
+            this.sampleException = errorOccurrence.exception;
+            this.count = 1;
+            this.firstSeenAt = errorOccurrence.occurredAt;
+            this.lastSeenAt = errorOccurrence.occurredAt;
+        }
+
+        void add(ErrorOccurrence errorOccurrence) {
+            count++;
+            lastSeenAt = errorOccurrence.occurredAt;
+        }
+    }
 }
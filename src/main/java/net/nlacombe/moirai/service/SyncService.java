@@ -1,22 +1,55 @@
 package net.nlacombe.moirai.service;
 
 import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.TimeWindow;
+import net.nlacombe.moirai.googlecalendar.EventMutationBatch;
+import net.nlacombe.moirai.googlecalendar.EventMutationCallback;
 import net.nlacombe.moirai.googlecalendar.GoogleCalendar;
 import net.nlacombe.moirai.googlecalendar.GoogleCalendarClient;
-import net.nlacombe.moirai.ical.IcalReader;
-import org.apache.commons.beanutils.BeanUtils;
+import net.nlacombe.moirai.googlecalendar.GoogleCalendarClientFactory;
+import net.nlacombe.moirai.googlecalendar.GoogleEvent;
+import net.nlacombe.moirai.ical.FeedFetcher;
+import net.nlacombe.moirai.ical.FeedValidatorStore;
+import net.nlacombe.moirai.ical.FeedValidators;
+import net.nlacombe.moirai.ical.IcalFeed;
+import net.nlacombe.moirai.ical.ParsedFeedCache;
+import net.nlacombe.moirai.ical.ParsedIcalFeed;
+import net.nlacombe.moirai.metrics.SyncMetrics;
+import net.nlacombe.moirai.sync.EventDiff;
+import net.nlacombe.moirai.sync.SyncProgress;
+import net.nlacombe.moirai.sync.SyncState;
+import net.nlacombe.moirai.sync.SyncStateLog;
+import net.nlacombe.moirai.sync.SyncStateStore;
+import net.nlacombe.moirai.sync.SyncedEvent;
+import net.nlacombe.moirai.util.Sha256;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
-import java.lang.reflect.InvocationTargetException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -26,38 +59,136 @@ public class SyncService {
     private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
 
     private EmailSenderService emailSenderService;
-    private String targetCalendarName;
+    private GoogleCalendarClientFactory googleCalendarClientFactory;
+    private FeedFetcher feedFetcher;
+    private ParsedFeedCache parsedFeedCache;
+    private FeedValidatorStore feedValidatorStore;
+    private SyncMetrics syncMetrics;
+    private SyncStateStore syncStateStore;
+    private String defaultTargetCalendarName;
     private String targetCalendarDefaultTimezoneText;
+    private Duration syncWindowBeforeNow;
+    private Duration syncWindowAfterNow;
+    private ExecutorService feedExecutor;
 
     @Inject
-    public SyncService(EmailSenderService emailSenderService,
-                       @Value("${targetCalendar.name}") String targetCalendarName,
-                       @Value("${targetCalendar.defaultTimezone}") String targetCalendarDefaultTimezoneText) {
+    public SyncService(@Lazy EmailSenderService emailSenderService, GoogleCalendarClientFactory googleCalendarClientFactory,
+                       FeedFetcher feedFetcher, ParsedFeedCache parsedFeedCache, FeedValidatorStore feedValidatorStore,
+                       SyncMetrics syncMetrics, SyncStateStore syncStateStore,
+                       @Value("${targetCalendar.name}") String defaultTargetCalendarName,
+                       @Value("${targetCalendar.defaultTimezone}") String targetCalendarDefaultTimezoneText,
+                       @Value("${sync.window.daysBeforeNow}") int syncWindowDaysBeforeNow,
+                       @Value("${sync.window.daysAfterNow}") int syncWindowDaysAfterNow,
+                       @Value("${sync.feeds.parallelism}") int feedParallelism) {
 
         this.emailSenderService = emailSenderService;
-        this.targetCalendarName = targetCalendarName;
+        this.googleCalendarClientFactory = googleCalendarClientFactory;
+        this.feedFetcher = feedFetcher;
+        this.parsedFeedCache = parsedFeedCache;
+        this.feedValidatorStore = feedValidatorStore;
+        this.syncMetrics = syncMetrics;
+        this.syncStateStore = syncStateStore;
+        this.defaultTargetCalendarName = defaultTargetCalendarName;
         this.targetCalendarDefaultTimezoneText = targetCalendarDefaultTimezoneText;
+        this.syncWindowBeforeNow = Duration.ofDays(syncWindowDaysBeforeNow);
+        this.syncWindowAfterNow = Duration.ofDays(syncWindowDaysAfterNow);
+        var threadFactory = new CustomizableThreadFactory("feed-reader-");
+        threadFactory.setDaemon(true);
+        this.feedExecutor = Executors.newFixedThreadPool(feedParallelism, threadFactory);
     }
 
     public void sync(String sourceCalendarIcalUrl, String googleUserAccessToken, String googleUserRefreshToken) {
+        sync(List.of(sourceCalendarIcalUrl), googleUserAccessToken, googleUserRefreshToken, null, new SyncProgress());
+    }
+
+    public void sync(List<String> sourceCalendarIcalUrls, String googleUserAccessToken, String googleUserRefreshToken,
+                     String targetCalendarName, SyncProgress progress) {
+        var subscriptionId = progress.getSubscriptionId();
+
         try {
+            targetCalendarName = getTargetCalendarName(targetCalendarName);
             var targetCalendarDefaultTimezone = ZoneId.of(targetCalendarDefaultTimezoneText);
 
-            logger.info("Syncing from ICal URL \"" + sourceCalendarIcalUrl + "\" to Google Calendar with name \"" + targetCalendarName + "\".");
+            logger.info("Syncing from ICal URLs " + sourceCalendarIcalUrls + " to Google Calendar with name \"" + targetCalendarName + "\".");
+
+            var syncKey = getSyncKey(sourceCalendarIcalUrls, googleUserRefreshToken, targetCalendarName);
+            SyncState syncState = null;
+
+            if (sourceCalendarIcalUrls.stream().anyMatch(url -> feedValidatorStore.get(getFeedValidatorsKey(syncKey, url)) == null)) {
+                syncState = syncStateStore.load(syncKey);
+
+                if (syncState != null) {
+                    syncState.getFeedValidatorsBySourceUrl().forEach((url, feedValidators) ->
+                            feedValidatorStore.put(getFeedValidatorsKey(syncKey, url), feedValidators));
+                }
+            }
+
+            var syncWindow = TimeWindow.around(Instant.now(), syncWindowBeforeNow, syncWindowAfterNow);
+
+            logger.info("Reading from " + sourceCalendarIcalUrls.size() + " source URL(s)...");
+            var fetchTimer = syncMetrics.startTimer();
+            var sourceFeeds = runInParallel(sourceCalendarIcalUrls,
+                    url -> feedFetcher.fetch(url, feedValidatorStore.get(getFeedValidatorsKey(syncKey, url)), syncWindow));
+
+            if (sourceFeeds.stream().noneMatch(IcalFeed::isModified)) {
+                syncMetrics.recordPhase(subscriptionId, "fetch", fetchTimer);
+                logger.info("Source calendars unchanged since last sync, nothing to do.");
+                syncMetrics.incrementRuns(subscriptionId, "unchanged");
+                return;
+            }
+
+            sourceFeeds = runInParallel(sourceFeeds, sourceFeed -> sourceFeed.getParsedFeed() != null || parsedFeedCache.contains(sourceFeed) ?
+                    sourceFeed : feedFetcher.fetch(sourceFeed.getUrl(), null, syncWindow));
+            syncMetrics.recordPhase(subscriptionId, "fetch", fetchTimer);
+            syncMetrics.recordFeedBytes(subscriptionId, sourceFeeds.stream()
+                    .filter(sourceFeed -> sourceFeed.getParsedFeed() != null)
+                    .mapToLong(sourceFeed -> sourceFeed.getParsedFeed().getContentLength())
+                    .sum());
 
-            var googleCalendarClient = new GoogleCalendarClient(googleUserAccessToken, googleUserRefreshToken);
+            progress.checkDeadline();
+            var calendarTimer = syncMetrics.startTimer();
+            var googleCalendarClient = googleCalendarClientFactory.create(googleUserAccessToken, googleUserRefreshToken);
             var calendar = getOrCreateCalendar(googleCalendarClient, targetCalendarName, targetCalendarDefaultTimezone);
+            syncMetrics.recordPhase(subscriptionId, "calendar", calendarTimer);
+
+            var primarySourceCalendarIcalUrl = Collections.min(sourceCalendarIcalUrls);
+            var outOfWindowIcalUids = new HashSet<String>();
+            var sourceEvents = new ArrayList<Event>();
 
-            logger.info("Reading from source URL...");
-            var sourceEvents = IcalReader.readFromUrl(sourceCalendarIcalUrl, calendar.getTimezone());
+            var parseTimer = syncMetrics.startTimer();
+            var feedEvents = runInParallel(sourceFeeds,
+                    sourceFeed -> readEvents(getParsedFeed(sourceFeed, syncWindow), !sourceFeed.getUrl().equals(primarySourceCalendarIcalUrl),
+                            calendar.getTimezone(), syncWindow));
+            feedEvents.forEach(events -> {
+                sourceEvents.addAll(events.events);
+                outOfWindowIcalUids.addAll(events.outOfWindowIcalUids);
+            });
+            syncMetrics.recordPhase(subscriptionId, "parse", parseTimer);
 
-            logger.info("Found " + sourceEvents.size() + " future source events to sync.");
+            progress.addEventsRead(sourceEvents.size());
+            syncMetrics.recordEventsRead(subscriptionId, sourceEvents.size());
+            logger.info("Found " + sourceEvents.size() + " source events to sync in " + syncWindow + " (" + outOfWindowIcalUids.size() + " outside).");
             logger.info("Primary google calendar email: " + googleCalendarClient.getPrimaryCalendarEmail());
 
+            if (syncState == null)
+                syncState = syncStateStore.load(syncKey);
+
+            if (syncState != null && !calendar.getCalendarId().equals(syncState.getCalendarId())) {
+                logger.info("Sync state was recorded for another calendar, it will be rebuilt.");
+                syncState = null;
+            }
+
+            var feedValidatorsBySourceUrl = new LinkedHashMap<String, FeedValidators>();
+            sourceFeeds.forEach(sourceFeed -> feedValidatorsBySourceUrl.put(sourceFeed.getUrl(), sourceFeed.getValidators()));
+
             logger.info("Sycing to Google Calendar...");
-            syncGoogleCalendarWithIcalEvents(googleCalendarClient, calendar, sourceEvents);
-            logger.info("Done.");
+            syncGoogleCalendarWithIcalEvents(googleCalendarClient, calendar, sourceEvents, outOfWindowIcalUids, syncWindow, syncKey, syncState,
+                    feedValidatorsBySourceUrl, progress);
+            feedValidatorsBySourceUrl.forEach((url, feedValidators) -> feedValidatorStore.put(getFeedValidatorsKey(syncKey, url), feedValidators));
+            syncMetrics.incrementRuns(subscriptionId, "success");
+            logger.info("Done: " + progress);
         } catch (Exception e) {
+            syncMetrics.incrementRuns(subscriptionId, "failure");
 
             if(shouldSendEmailForThrowable(e))
                 emailSenderService.sendErrorEmail(e);
@@ -66,39 +197,213 @@ public class SyncService {
         }
     }
 
-    private static void syncGoogleCalendarWithIcalEvents(GoogleCalendarClient googleCalendarClient, GoogleCalendar calendar, List<Event> sourceEvents) {
-        var sourceEventsByIcalUid = sourceEvents.stream().collect(Collectors.toMap(Event::getIcalUid, Function.identity()));
+    private ParsedIcalFeed getParsedFeed(IcalFeed sourceFeed, TimeWindow syncWindow) {
+        var parsedFeed = parsedFeedCache.get(sourceFeed);
 
-        sourceEvents.stream()
-                .filter(event -> event.getStart().isAfter(ZonedDateTime.now()))
-                .sorted()
-                .forEach(event -> updateOrCreateEventInGoogleCalendar(googleCalendarClient, calendar, event));
+        if (parsedFeed != null && parsedFeed.containsAllEventsIn(syncWindow))
+            return parsedFeed;
 
-        googleCalendarClient.getAllEvents(calendar.getCalendarId())
-                .filter(event -> !sourceEventsByIcalUid.containsKey(event.getIcalUid()))
-                .forEach(event -> googleCalendarClient.removeEvent(calendar.getCalendarId(), event.getGoogleEventId()));
+        return parsedFeedCache.get(feedFetcher.fetch(sourceFeed.getUrl(), null, syncWindow));
     }
 
-    private static void updateOrCreateEventInGoogleCalendar(GoogleCalendarClient googleCalendarClient, GoogleCalendar calendar, Event icalEvent) {
-        var existingGoogleEvent = googleCalendarClient.getEventFromIcalUid(calendar.getCalendarId(), icalEvent.getIcalUid());
+    private static FeedEvents readEvents(ParsedIcalFeed parsedFeed, boolean namespaced, ZoneId timeZone, TimeWindow syncWindow) {
+        var icalUidPrefix = namespaced ? getSourceNamespace(parsedFeed.getUrl()) + "/" : "";
+        var feedEvents = new FeedEvents();
+
+        parsedFeed.stream(icalUidPrefix, timeZone, syncWindow, feedEvents.outOfWindowIcalUids::add).forEach(feedEvents.events::add);
+
+        return feedEvents;
+    }
+
+    private static String getSourceNamespace(String sourceCalendarIcalUrl) {
+        return Sha256.toKey(sourceCalendarIcalUrl).substring(0, 12);
+    }
 
-        if (existingGoogleEvent == null) {
-            googleCalendarClient.createEvent(calendar.getCalendarId(), icalEvent);
+    private <T, R> List<R> runInParallel(List<T> inputs, Function<T, R> task) {
+        if (inputs.size() == 1)
+            return List.of(task.apply(inputs.get(0)));
+
+        var futures = inputs.stream()
+                .map(input -> CompletableFuture.supplyAsync(() -> task.apply(input), feedExecutor))
+                .collect(Collectors.toList());
+
+        try {
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw e;
+        }
+    }
+
+    private void syncGoogleCalendarWithIcalEvents(GoogleCalendarClient googleCalendarClient, GoogleCalendar calendar,
+                                                  List<Event> sourceEvents, Set<String> unsyncedSourceIcalUids, TimeWindow syncWindow,
+                                                  String syncKey, SyncState syncState,
+                                                  Map<String, FeedValidators> feedValidatorsBySourceUrl, SyncProgress progress) {
+
+        var subscriptionId = progress.getSubscriptionId();
+        var rebuildSyncState = syncState == null;
+        EventDiff eventDiff;
+
+        if (rebuildSyncState) {
+            var listTimer = syncMetrics.startTimer();
+            var targetEvents = googleCalendarClient.getAllEvents(calendar.getCalendarId(), syncWindow);
+            syncMetrics.recordPhase(subscriptionId, "list", listTimer);
+
+            var diffTimer = syncMetrics.startTimer();
+            eventDiff = EventDiff.compute(sourceEvents, unsyncedSourceIcalUids, targetEvents);
+            syncMetrics.recordPhase(subscriptionId, "diff", diffTimer);
+
+            syncState = new SyncState(calendar.getCalendarId());
         } else {
-            if (existingGoogleEvent.equals(icalEvent))
-                return;
+            logger.info("Using recorded sync state: " + syncState);
+            syncState.removeEventsStartingBefore(syncWindow.getStart());
 
-            copyBeanProperties(icalEvent, existingGoogleEvent);
-            googleCalendarClient.updateEvent(calendar.getCalendarId(), existingGoogleEvent);
+            var diffTimer = syncMetrics.startTimer();
+            eventDiff = EventDiff.compute(sourceEvents, unsyncedSourceIcalUids, syncState);
+            syncMetrics.recordPhase(subscriptionId, "diff", diffTimer);
+        }
+
+        syncMetrics.recordDiff(subscriptionId, eventDiff);
+        logger.info("Computed changes to apply: " + eventDiff);
+        progress.checkDeadline();
+
+        if (rebuildSyncState)
+            recordUnchangedEvents(syncState, sourceEvents, eventDiff);
+
+        try (var syncStateLog = syncStateStore.open(syncKey, syncState, rebuildSyncState)) {
+            applyEventDiff(googleCalendarClient, calendar, eventDiff, syncStateLog, progress);
+            syncStateLog.commit(feedValidatorsBySourceUrl);
         }
     }
 
-    private static <SourceType, TargetType> void copyBeanProperties(SourceType sourceBean, TargetType targetBean) {
-        try {
-            BeanUtils.copyProperties(targetBean, sourceBean);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+    private void applyEventDiff(GoogleCalendarClient googleCalendarClient, GoogleCalendar calendar, EventDiff eventDiff,
+                                SyncStateLog syncStateLog, SyncProgress progress) {
+
+        var failedMutations = new ArrayList<String>();
+        var createdSeriesGoogleEventIds = new HashMap<String, String>();
+        var mutateTimer = syncMetrics.startTimer();
+        var mutationBatch = googleCalendarClient.createMutationBatch(calendar.getCalendarId());
+
+        for (var event : eventDiff.getEventsToCreate()) {
+            if (!event.isRecurrenceOverride()) {
+                mutationBatch.createEvent(event, getMutationCallback("create", event, progress::incrementEventsCreated, googleEventId -> {
+                    if (event.isRecurring())
+                        createdSeriesGoogleEventIds.put(event.getIcalUid(), googleEventId);
+
+                    syncStateLog.recordEventSynced(event, googleEventId);
+                }, progress, failedMutations));
+            }
+        }
+
+        enqueueUpdatesAndDeletes(mutationBatch, eventDiff, false, syncStateLog, progress, failedMutations);
+        mutationBatch.flush();
+
+        for (var event : eventDiff.getEventsToCreate()) {
+            if (event.isRecurrenceOverride())
+                enqueueOverrideCreation(mutationBatch, event, eventDiff, createdSeriesGoogleEventIds, syncStateLog, progress, failedMutations);
+        }
+
+        enqueueUpdatesAndDeletes(mutationBatch, eventDiff, true, syncStateLog, progress, failedMutations);
+        eventDiff.getEventsToRevert().forEach(event -> mutationBatch.updateEvent(event,
+                getMutationCallback("revert", event, progress::incrementEventsUpdated,
+                        googleEventId -> syncStateLog.recordEventRemoved(event), progress, failedMutations)));
+        mutationBatch.flush();
+        syncMetrics.recordPhase(progress.getSubscriptionId(), "mutate", mutateTimer);
+
+        if (!failedMutations.isEmpty())
+            throw new RuntimeException(failedMutations.size() + " event mutation(s) failed: " + String.join("; ", failedMutations));
+    }
+
+    private void enqueueUpdatesAndDeletes(EventMutationBatch mutationBatch, EventDiff eventDiff, boolean recurrenceOverrides,
+                                          SyncStateLog syncStateLog, SyncProgress progress, List<String> failedMutations) {
+
+        eventDiff.getEventsToUpdate().stream()
+                .filter(event -> event.isRecurrenceOverride() == recurrenceOverrides)
+                .forEach(event -> mutationBatch.updateEvent(event,
+                        getMutationCallback("update", event, progress::incrementEventsUpdated,
+                                googleEventId -> syncStateLog.recordEventSynced(event, googleEventId), progress, failedMutations)));
+        eventDiff.getEventsToDelete().stream()
+                .filter(event -> event.isRecurrenceOverride() == recurrenceOverrides)
+                .forEach(event -> mutationBatch.removeEvent(event.getGoogleEventId(),
+                        getMutationCallback("delete", event, progress::incrementEventsDeleted,
+                                googleEventId -> syncStateLog.recordEventRemoved(event), progress, failedMutations)));
+    }
+
+    private void enqueueOverrideCreation(EventMutationBatch mutationBatch, Event event, EventDiff eventDiff,
+                                         Map<String, String> createdSeriesGoogleEventIds, SyncStateLog syncStateLog,
+                                         SyncProgress progress, List<String> failedMutations) {
+
+        var callback = getMutationCallback("create", event, progress::incrementEventsCreated,
+                googleEventId -> syncStateLog.recordEventSynced(event, googleEventId), progress, failedMutations);
+        var seriesGoogleEventId = createdSeriesGoogleEventIds.getOrDefault(event.getIcalUid(), eventDiff.getSeriesGoogleEventId(event.getIcalUid()));
+
+        if (seriesGoogleEventId == null) {
+            callback.onFailure(404, "Recurring event series is not synced");
+            return;
         }
+
+        var instanceGoogleEventId = GoogleCalendarClient.getInstanceGoogleEventId(seriesGoogleEventId, event.getRecurrenceId().toInstant());
+        mutationBatch.updateEvent(new GoogleEvent(instanceGoogleEventId, false, null, event), callback);
+    }
+
+    private static void recordUnchangedEvents(SyncState syncState, List<Event> sourceEvents, EventDiff eventDiff) {
+        for (var sourceEvent : sourceEvents) {
+            var googleEventId = eventDiff.getUnchangedGoogleEventId(sourceEvent.getSyncUid());
+
+            if (googleEventId != null)
+                syncState.putSyncedEvent(SyncedEvent.of(sourceEvent, googleEventId));
+        }
+    }
+
+    private EventMutationCallback getMutationCallback(String mutationName, Event event, Runnable successCounter,
+                                                      Consumer<String> successRecorder, SyncProgress progress,
+                                                      List<String> failedMutations) {
+        return new EventMutationCallback() {
+            @Override
+            public void onSuccess(String googleEventId) {
+                logger.debug("Event " + mutationName + " succeeded for " + event);
+
+                successCounter.run();
+                successRecorder.accept(googleEventId);
+                syncMetrics.incrementMutations(progress.getSubscriptionId(), mutationName, "success");
+            }
+
+            @Override
+            public void onFailure(int statusCode, String errorMessage) {
+                logger.warn("Event " + mutationName + " failed with status " + statusCode + " for " + event + ": " + errorMessage);
+
+                progress.incrementEventsFailed();
+                syncMetrics.incrementMutations(progress.getSubscriptionId(), mutationName, "failure");
+
+                failedMutations.add(mutationName + " of \"" + event.getSyncUid() + "\" (" + statusCode + " " + errorMessage + ")");
+            }
+        };
+    }
+
+    public String getSyncKey(List<String> sourceCalendarIcalUrls, String googleUserRefreshToken, String targetCalendarName) {
+        var sourceCalendarIcalUrlsKey = sourceCalendarIcalUrls.stream().sorted().collect(Collectors.joining(","));
+
+        return sourceCalendarIcalUrlsKey + " " + Sha256.toKey(googleUserRefreshToken) + " " +
+                getTargetCalendarName(targetCalendarName);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        feedExecutor.shutdownNow();
+    }
+
+    private static String getFeedValidatorsKey(String syncKey, String sourceCalendarIcalUrl) {
+        return syncKey + " " + sourceCalendarIcalUrl;
+    }
+
+    private String getTargetCalendarName(String targetCalendarName) {
+        return StringUtils.isBlank(targetCalendarName) ? defaultTargetCalendarName : targetCalendarName;
     }
 
     private static GoogleCalendar getOrCreateCalendar(GoogleCalendarClient googleCalendarClient, String calendarName, ZoneId timezone) {
@@ -122,4 +427,10 @@ public class SyncService {
         return clazz.isAssignableFrom(throwable.getClass()) ||
                 (throwable.getCause() != null && isThrowableOrCauseOfType(throwable.getCause(), clazz));
     }
+
+    private static class FeedEvents {
+
+        private List<Event> events = new ArrayList<>();
+        private Set<String> outOfWindowIcalUids = new HashSet<>();
+    }
 }
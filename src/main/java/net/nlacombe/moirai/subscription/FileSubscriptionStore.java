@@ -0,0 +1,117 @@
+package net.nlacombe.moirai.subscription;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class FileSubscriptionStore implements SubscriptionStore {
+
+    private static final Set<PosixFilePermission> FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+    private static final Logger logger = LoggerFactory.getLogger(FileSubscriptionStore.class);
+
+    private Path file;
+    private ObjectMapper objectMapper;
+    private Map<String, Subscription> subscriptionsById;
+
+    @Inject
+    public FileSubscriptionStore(ObjectMapper objectMapper, @Value("${subscriptions.store.file:}") String file) {
+        if (file.isBlank())
+            logger.warn("subscriptions.store.file is not set, subscriptions are kept in memory and lost on restart.");
+
+        this.file = file.isBlank() ? null : Paths.get(file);
+        this.objectMapper = objectMapper;
+        this.subscriptionsById = load();
+    }
+
+    @Override
+    public synchronized List<Subscription> findAll() {
+        return new ArrayList<>(subscriptionsById.values());
+    }
+
+    @Override
+    public synchronized Subscription find(String subscriptionId) {
+        return subscriptionsById.get(subscriptionId);
+    }
+
+    @Override
+    public synchronized void save(Subscription subscription) {
+        subscriptionsById.put(subscription.getSubscriptionId(), subscription);
+        write();
+    }
+
+    @Override
+    public synchronized void delete(String subscriptionId) {
+        if (subscriptionsById.remove(subscriptionId) != null)
+            write();
+    }
+
+    private Map<String, Subscription> load() {
+        var subscriptions = new LinkedHashMap<String, Subscription>();
+
+        if (file == null || !Files.exists(file))
+            return subscriptions;
+
+        try {
+            if (isPosix())
+                Files.setPosixFilePermissions(file, FILE_PERMISSIONS);
+
+            List<Subscription> storedSubscriptions = objectMapper.readValue(file.toFile(), new TypeReference<List<Subscription>>() {
+            });
+            storedSubscriptions.forEach(subscription -> subscriptions.put(subscription.getSubscriptionId(), subscription));
+
+            return subscriptions;
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading subscriptions from \"" + file + "\"", e);
+        }
+    }
+
+    private void write() {
+        if (file == null)
+            return;
+
+        try {
+            var directory = file.toAbsolutePath().getParent();
+
+            if (!Files.exists(directory))
+                Files.createDirectories(directory, getAttributes(DIRECTORY_PERMISSIONS));
+
+            var temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp", getAttributes(FILE_PERMISSIONS));
+            objectMapper.writeValue(temporaryFile.toFile(), new ArrayList<>(subscriptionsById.values()));
+
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing subscriptions to \"" + file + "\"", e);
+        }
+    }
+
+    private FileAttribute<?>[] getAttributes(Set<PosixFilePermission> permissions) {
+        if (!isPosix())
+            return new FileAttribute<?>[0];
+
+        return new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(permissions)};
+    }
+
+    private boolean isPosix() {
+        return file.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+}
@@ -0,0 +1,171 @@
+package net.nlacombe.moirai.subscription;
+
+import net.nlacombe.moirai.dto.IcalToGoogleCalendarSyncRequest;
+import net.nlacombe.moirai.sync.SyncJobService;
+import net.nlacombe.moirai.util.Sha256;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class SubscriptionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionScheduler.class);
+
+    private SubscriptionStore subscriptionStore;
+    private SyncJobService syncJobService;
+    private boolean enabled;
+    private Duration tickInterval;
+    private Duration defaultSyncInterval;
+    private double syncIntervalJitterRatio;
+    private int maxConcurrentSyncsPerAccount;
+    private ScheduledExecutorService tickExecutor;
+    private Map<String, Instant> nextSyncTimesBySubscriptionId;
+    private Set<String> runningSubscriptionIds;
+    private Map<String, Integer> runningSyncCountsByAccountKey;
+
+    @Inject
+    public SubscriptionScheduler(SubscriptionStore subscriptionStore, SyncJobService syncJobService,
+                                 @Value("${subscriptions.scheduler.enabled}") boolean enabled,
+                                 @Value("${subscriptions.scheduler.tickSeconds}") long tickSeconds,
+                                 @Value("${subscriptions.scheduler.defaultSyncIntervalSeconds}") long defaultSyncIntervalSeconds,
+                                 @Value("${subscriptions.scheduler.syncIntervalJitterRatio}") double syncIntervalJitterRatio,
+                                 @Value("${subscriptions.scheduler.maxConcurrentSyncsPerAccount}") int maxConcurrentSyncsPerAccount) {
+
+        this.subscriptionStore = subscriptionStore;
+        this.syncJobService = syncJobService;
+        this.enabled = enabled;
+        this.tickInterval = Duration.ofSeconds(tickSeconds);
+        this.defaultSyncInterval = Duration.ofSeconds(defaultSyncIntervalSeconds);
+        this.syncIntervalJitterRatio = syncIntervalJitterRatio;
+        this.maxConcurrentSyncsPerAccount = maxConcurrentSyncsPerAccount;
+        this.nextSyncTimesBySubscriptionId = new ConcurrentHashMap<>();
+        this.runningSubscriptionIds = new HashSet<>();
+        this.runningSyncCountsByAccountKey = new HashMap<>();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled)
+            return;
+
+        logger.info("Starting subscription scheduler with " + subscriptionStore.findAll().size() + " subscriptions.");
+
+        tickExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("subscription-scheduler-"));
+        tickExecutor.scheduleWithFixedDelay(this::tick, tickInterval.toMillis(), tickInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (tickExecutor != null)
+            tickExecutor.shutdownNow();
+    }
+
+    public void unschedule(String subscriptionId) {
+        nextSyncTimesBySubscriptionId.remove(subscriptionId);
+    }
+
+    void tick() {
+        try {
+            var now = Instant.now();
+
+            for (var subscription : subscriptionStore.findAll()) {
+                if (!scheduleIfDue(subscription, now))
+                    break;
+            }
+        } catch (Exception e) {
+            logger.error("Error scheduling subscription syncs.", e);
+        }
+    }
+
+    private boolean scheduleIfDue(Subscription subscription, Instant now) {
+        var subscriptionId = subscription.getSubscriptionId();
+        var syncInterval = getSyncInterval(subscription);
+        var nextSyncTime = nextSyncTimesBySubscriptionId.computeIfAbsent(subscriptionId,
+                id -> now.plusMillis(ThreadLocalRandom.current().nextLong(syncInterval.toMillis() + 1)));
+
+        if (nextSyncTime.isAfter(now))
+            return true;
+
+        var accountKey = Sha256.toKey(subscription.getGoogleUserRefreshToken());
+
+        if (!tryMarkRunning(subscriptionId, accountKey))
+            return true;
+
+        try {
+            var job = syncJobService.submit(toSyncRequest(subscription), subscriptionId);
+            job.whenFinished(finishedJob -> markFinished(subscriptionId, accountKey));
+        } catch (RejectedExecutionException e) {
+            markFinished(subscriptionId, accountKey);
+            logger.warn("Sync job queue is full, deferring remaining subscription syncs to the next tick.");
+
+            return false;
+        }
+
+        nextSyncTimesBySubscriptionId.put(subscriptionId, now.plus(getJitteredInterval(syncInterval)));
+
+        return true;
+    }
+
+    private synchronized boolean tryMarkRunning(String subscriptionId, String accountKey) {
+        if (runningSubscriptionIds.contains(subscriptionId))
+            return false;
+
+        var runningSyncCount = runningSyncCountsByAccountKey.getOrDefault(accountKey, 0);
+
+        if (runningSyncCount >= maxConcurrentSyncsPerAccount)
+            return false;
+
+        runningSubscriptionIds.add(subscriptionId);
+        runningSyncCountsByAccountKey.put(accountKey, runningSyncCount + 1);
+
+        return true;
+    }
+
+    private synchronized void markFinished(String subscriptionId, String accountKey) {
+        runningSubscriptionIds.remove(subscriptionId);
+        runningSyncCountsByAccountKey.computeIfPresent(accountKey, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Duration getSyncInterval(Subscription subscription) {
+        return subscription.getSyncIntervalSeconds() != null ? Duration.ofSeconds(subscription.getSyncIntervalSeconds()) : defaultSyncInterval;
+    }
+
+    private Duration getJitteredInterval(Duration syncInterval) {
+        if (syncIntervalJitterRatio <= 0)
+            return syncInterval;
+
+        var jitter = ThreadLocalRandom.current().nextDouble(-syncIntervalJitterRatio, syncIntervalJitterRatio);
+
+        return Duration.ofMillis((long) (syncInterval.toMillis() * (1 + jitter)));
+    }
+
+    private static IcalToGoogleCalendarSyncRequest toSyncRequest(Subscription subscription) {
+        var request = new IcalToGoogleCalendarSyncRequest();
+        request.setSourceCalendarIcalUrl(subscription.getSourceCalendarIcalUrl());
+        request.setSourceCalendarIcalUrls(subscription.getSourceCalendarIcalUrls());
+        request.setGoogleUserAccessToken(subscription.getGoogleUserAccessToken());
+        request.setGoogleUserRefreshToken(subscription.getGoogleUserRefreshToken());
+        request.setTargetCalendarName(subscription.getTargetCalendarName());
+
+        return request;
+    }
+}
@@ -0,0 +1,14 @@
+package net.nlacombe.moirai.subscription;
+
+import java.util.List;
+
+public interface SubscriptionStore {
+
+    List<Subscription> findAll();
+
+    Subscription find(String subscriptionId);
+
+    void save(Subscription subscription);
+
+    void delete(String subscriptionId);
+}
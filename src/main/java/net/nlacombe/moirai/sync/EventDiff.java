@@ -0,0 +1,225 @@
+package net.nlacombe.moirai.sync;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventFingerprint;
+import net.nlacombe.moirai.googlecalendar.GoogleEvent;
+import net.nlacombe.moirai.ical.IcalReader;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EventDiff {
+
+    private List<Event> eventsToCreate;
+    private List<GoogleEvent> eventsToUpdate;
+    private List<GoogleEvent> eventsToRevert;
+    private List<GoogleEvent> eventsToDelete;
+    private Map<String, String> unchangedGoogleEventIdsBySyncUid;
+    private Map<String, String> seriesGoogleEventIdsByIcalUid;
+
+    private EventDiff() {
+        this.eventsToCreate = new ArrayList<>();
+        this.eventsToUpdate = new ArrayList<>();
+        this.eventsToRevert = new ArrayList<>();
+        this.eventsToDelete = new ArrayList<>();
+        this.unchangedGoogleEventIdsBySyncUid = new HashMap<>();
+        this.seriesGoogleEventIdsByIcalUid = new HashMap<>();
+    }
+
+    public static EventDiff compute(List<Event> sourceEvents, Set<String> unsyncedSourceSyncUids, Stream<GoogleEvent> targetEvents) {
+        var sourceEventsBySyncUid = indexSourceEvents(sourceEvents);
+        var sourceSyncUids = new HashSet<>(unsyncedSourceSyncUids);
+        sourceSyncUids.addAll(sourceEventsBySyncUid.keySet());
+        var targetEventsBySyncUid = new HashMap<String, GoogleEvent>();
+        var orphanedTargetEvents = new ArrayList<GoogleEvent>();
+
+        targetEvents.forEach(targetEvent -> indexTargetEvent(targetEvent, sourceSyncUids, targetEventsBySyncUid, orphanedTargetEvents));
+
+        var eventDiff = new EventDiff();
+        orphanedTargetEvents.forEach(orphanedEvent -> eventDiff.removeOrphanedEvent(orphanedEvent, sourceEventsBySyncUid, unsyncedSourceSyncUids));
+
+        for (var targetEvent : targetEventsBySyncUid.values()) {
+            if (!targetEvent.isRecurrenceOverride() && !targetEvent.isCancelled())
+                eventDiff.seriesGoogleEventIdsByIcalUid.put(targetEvent.getIcalUid(), targetEvent.getGoogleEventId());
+        }
+
+        for (var sourceEvent : sourceEvents.stream().sorted().collect(Collectors.toList())) {
+            var existingGoogleEvent = targetEventsBySyncUid.get(sourceEvent.getSyncUid());
+
+            if (existingGoogleEvent == null) {
+                eventDiff.eventsToCreate.add(sourceEvent);
+            } else if (!existingGoogleEvent.isCancelled() && isUnchanged(sourceEvent, existingGoogleEvent)) {
+                eventDiff.unchangedGoogleEventIdsBySyncUid.put(sourceEvent.getSyncUid(), existingGoogleEvent.getGoogleEventId());
+            } else {
+                eventDiff.eventsToUpdate.add(existingGoogleEvent.withContentOf(sourceEvent));
+            }
+        }
+
+        return eventDiff;
+    }
+
+    public static EventDiff compute(List<Event> sourceEvents, Set<String> unsyncedSourceSyncUids, SyncState syncState) {
+        var sourceEventsBySyncUid = indexSourceEvents(sourceEvents);
+        var eventDiff = new EventDiff();
+
+        for (var syncedEvent : syncState.getSyncedEvents()) {
+            if (syncedEvent.getRecurrenceId() == null)
+                eventDiff.seriesGoogleEventIdsByIcalUid.put(syncedEvent.getIcalUid(), syncedEvent.getGoogleEventId());
+
+            if (!sourceEventsBySyncUid.containsKey(syncedEvent.getSyncUid()) && !unsyncedSourceSyncUids.contains(syncedEvent.getSyncUid()))
+                eventDiff.removeOrphanedEvent(toGoogleEvent(syncedEvent), sourceEventsBySyncUid, unsyncedSourceSyncUids);
+        }
+
+        for (var sourceEvent : sourceEvents.stream().sorted().collect(Collectors.toList())) {
+            var syncedEvent = syncState.getSyncedEvent(sourceEvent.getSyncUid());
+
+            if (syncedEvent == null) {
+                eventDiff.eventsToCreate.add(sourceEvent);
+            } else if (EventFingerprint.compute(sourceEvent).equals(syncedEvent.getContentFingerprint())) {
+                eventDiff.unchangedGoogleEventIdsBySyncUid.put(sourceEvent.getSyncUid(), syncedEvent.getGoogleEventId());
+            } else {
+                eventDiff.eventsToUpdate.add(new GoogleEvent(syncedEvent.getGoogleEventId(), false, null, sourceEvent));
+            }
+        }
+
+        return eventDiff;
+    }
+
+    private static Map<String, Event> indexSourceEvents(List<Event> sourceEvents) {
+        var sourceEventsBySyncUid = new HashMap<String, Event>();
+        sourceEvents.forEach(sourceEvent -> sourceEventsBySyncUid.put(sourceEvent.getSyncUid(), sourceEvent));
+
+        return sourceEventsBySyncUid;
+    }
+
+    private static GoogleEvent toGoogleEvent(SyncedEvent syncedEvent) {
+        var recurrenceId = syncedEvent.getRecurrenceId() != null ? syncedEvent.getRecurrenceId().atZone(ZoneOffset.UTC) : null;
+
+        return new GoogleEvent(syncedEvent.getGoogleEventId(), false, null, Event.withIcalUid(syncedEvent.getIcalUid(), recurrenceId));
+    }
+
+    private void removeOrphanedEvent(GoogleEvent orphanedEvent, Map<String, Event> sourceEventsBySyncUid, Set<String> unsyncedSourceSyncUids) {
+        if (orphanedEvent.isRecurrenceOverride()) {
+            var series = sourceEventsBySyncUid.get(orphanedEvent.getIcalUid());
+
+            if (series == null && unsyncedSourceSyncUids.contains(orphanedEvent.getIcalUid()))
+                return;
+
+            if (series != null && series.isRecurring() && !isExcludedOccurrence(series, orphanedEvent.getRecurrenceId())) {
+                eventsToRevert.add(new GoogleEvent(orphanedEvent.getGoogleEventId(), false, null, series.toOccurrence(orphanedEvent.getRecurrenceId())));
+                return;
+            }
+        }
+
+        eventsToDelete.add(orphanedEvent);
+    }
+
+    private static boolean isExcludedOccurrence(Event series, ZonedDateTime occurrence) {
+        for (var recurrenceLine : series.getRecurrence()) {
+            var valueIndex = recurrenceLine.lastIndexOf(':');
+
+            if (!recurrenceLine.startsWith("EXDATE") || valueIndex < 0)
+                continue;
+
+            var zone = getTzid(recurrenceLine.substring(0, valueIndex), series.getTimeZone());
+
+            for (var value : recurrenceLine.substring(valueIndex + 1).split(",")) {
+                var excludedDate = IcalReader.parseDateTime(value.trim(), zone);
+
+                if (value.trim().length() == 8 ? excludedDate.toLocalDate().equals(occurrence.withZoneSameInstant(zone).toLocalDate())
+                        : excludedDate.toInstant().equals(occurrence.toInstant()))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static ZoneId getTzid(String nameAndParameters, ZoneId defaultZone) {
+        var tzidIndex = nameAndParameters.indexOf("TZID=");
+
+        if (tzidIndex < 0)
+            return defaultZone;
+
+        var tzidEndIndex = nameAndParameters.indexOf(';', tzidIndex);
+
+        try {
+            return ZoneId.of(nameAndParameters.substring(tzidIndex + 5, tzidEndIndex < 0 ? nameAndParameters.length() : tzidEndIndex).replace("\"", ""));
+        } catch (RuntimeException e) {
+            return defaultZone;
+        }
+    }
+
+    private static boolean isUnchanged(Event sourceEvent, GoogleEvent targetEvent) {
+        if (targetEvent.getContentFingerprint() != null)
+            return targetEvent.getContentFingerprint().equals(EventFingerprint.compute(sourceEvent));
+
+        return targetEvent.equals(sourceEvent);
+    }
+
+    private static void indexTargetEvent(GoogleEvent targetEvent, Set<String> sourceSyncUids,
+                                         Map<String, GoogleEvent> targetEventsBySyncUid, List<GoogleEvent> orphanedTargetEvents) {
+
+        if (targetEvent.getIcalUid() == null)
+            return;
+
+        if (!sourceSyncUids.contains(targetEvent.getSyncUid())) {
+            if (!targetEvent.isCancelled())
+                orphanedTargetEvents.add(targetEvent);
+
+            return;
+        }
+
+        targetEventsBySyncUid.merge(targetEvent.getSyncUid(), targetEvent,
+                (indexedEvent, newEvent) -> indexedEvent.isCancelled() ? newEvent : indexedEvent);
+    }
+
+    @Override
+    public String toString() {
+        return "EventDiff{" +
+                "create=" + eventsToCreate.size() +
+                ", update=" + eventsToUpdate.size() +
+                ", revert=" + eventsToRevert.size() +
+                ", delete=" + eventsToDelete.size() +
+                ", unchanged=" + unchangedGoogleEventIdsBySyncUid.size() +
+                '}';
+    }
+
+    public List<Event> getEventsToCreate() {
+        return Collections.unmodifiableList(eventsToCreate);
+    }
+
+    public List<GoogleEvent> getEventsToUpdate() {
+        return Collections.unmodifiableList(eventsToUpdate);
+    }
+
+    public List<GoogleEvent> getEventsToRevert() {
+        return Collections.unmodifiableList(eventsToRevert);
+    }
+
+    public List<GoogleEvent> getEventsToDelete() {
+        return Collections.unmodifiableList(eventsToDelete);
+    }
+
+    public int getUnchangedEventCount() {
+        return unchangedGoogleEventIdsBySyncUid.size();
+    }
+
+    public String getUnchangedGoogleEventId(String syncUid) {
+        return unchangedGoogleEventIdsBySyncUid.get(syncUid);
+    }
+
+    public String getSeriesGoogleEventId(String icalUid) {
+        return seriesGoogleEventIdsByIcalUid.get(icalUid);
+    }
+}
@@ -0,0 +1,124 @@
+package net.nlacombe.moirai.sync;
+
+import net.nlacombe.moirai.dto.IcalToGoogleCalendarSyncRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+public class SyncJob {
+
+    private String jobId;
+    private String syncKey;
+    private List<String> sourceCalendarIcalUrls;
+    private SyncProgress progress;
+    private Instant queuedAt;
+    private CompletableFuture<SyncJob> completion;
+    private volatile IcalToGoogleCalendarSyncRequest request;
+    private volatile SyncJobStatus status;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String errorMessage;
+
+    SyncJob(String jobId, String syncKey, IcalToGoogleCalendarSyncRequest request, String subscriptionId) {
+        this.jobId = jobId;
+        this.syncKey = syncKey;
+        this.sourceCalendarIcalUrls = SyncJobService.getSourceCalendarIcalUrls(request);
+        this.request = request;
+        this.progress = new SyncProgress();
+        this.progress.setSubscriptionId(subscriptionId);
+        this.queuedAt = Instant.now();
+        this.completion = new CompletableFuture<>();
+        this.status = SyncJobStatus.QUEUED;
+    }
+
+    public void whenFinished(Consumer<SyncJob> listener) {
+        completion.thenAccept(listener);
+    }
+
+    public SyncJob awaitCompletion(Duration timeout) {
+        try {
+            return completion.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Error waiting for sync job " + jobId, e);
+        }
+    }
+
+    synchronized IcalToGoogleCalendarSyncRequest markRunning() {
+        if (status != SyncJobStatus.QUEUED)
+            return null;
+
+        startedAt = Instant.now();
+        status = SyncJobStatus.RUNNING;
+
+        return request;
+    }
+
+    synchronized void markFinished(SyncJobStatus finalStatus, String errorMessage) {
+        if (status.isFinished())
+            return;
+
+        this.finishedAt = Instant.now();
+        this.errorMessage = errorMessage;
+        this.status = finalStatus;
+        this.request = null;
+        completion.complete(this);
+    }
+
+    String getSyncKey() {
+        return syncKey;
+    }
+
+    void setRequest(IcalToGoogleCalendarSyncRequest request) {
+        this.request = request;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncJob{" +
+                "jobId='" + jobId + '\'' +
+                ", status=" + status +
+                ", progress=" + progress +
+                '}';
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public List<String> getSourceCalendarIcalUrls() {
+        return sourceCalendarIcalUrls;
+    }
+
+    public SyncProgress getProgress() {
+        return progress;
+    }
+
+    public Instant getQueuedAt() {
+        return queuedAt;
+    }
+
+    public SyncJobStatus getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
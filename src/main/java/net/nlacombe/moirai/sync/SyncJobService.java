@@ -0,0 +1,203 @@
+package net.nlacombe.moirai.sync;
+
+import net.nlacombe.moirai.dto.IcalToGoogleCalendarSyncRequest;
+import net.nlacombe.moirai.service.SyncService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+public class SyncJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncJobService.class);
+
+    private SyncService syncService;
+    private Duration jobDeadline;
+    private Duration finishedJobRetention;
+    private ThreadPoolExecutor jobExecutor;
+    private ScheduledExecutorService deadlineScheduler;
+    private Map<String, SyncJob> jobsById;
+    private Map<String, SyncJob> activeJobsBySyncKey;
+    private Map<String, SyncJob> followUpJobsBySyncKey;
+
+    @Inject
+    public SyncJobService(SyncService syncService,
+                          @Value("${sync.jobs.workerThreads}") int workerThreads,
+                          @Value("${sync.jobs.queueCapacity}") int queueCapacity,
+                          @Value("${sync.jobs.deadlineSeconds}") long jobDeadlineSeconds,
+                          @Value("${sync.jobs.retentionSeconds}") long finishedJobRetentionSeconds) {
+
+        this.syncService = syncService;
+        this.jobDeadline = Duration.ofSeconds(jobDeadlineSeconds);
+        this.finishedJobRetention = Duration.ofSeconds(finishedJobRetentionSeconds);
+        this.jobExecutor = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("sync-job-"), new ThreadPoolExecutor.AbortPolicy());
+        this.deadlineScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sync-job-deadline-"));
+        this.jobsById = new ConcurrentHashMap<>();
+        this.activeJobsBySyncKey = new HashMap<>();
+        this.followUpJobsBySyncKey = new HashMap<>();
+    }
+
+    public SyncJob submit(IcalToGoogleCalendarSyncRequest request) {
+        return submit(request, null);
+    }
+
+    public SyncJob submit(IcalToGoogleCalendarSyncRequest request, String subscriptionId) {
+        removeExpiredJobs();
+
+        var syncKey = syncService.getSyncKey(getSourceCalendarIcalUrls(request), request.getGoogleUserRefreshToken(),
+                request.getTargetCalendarName());
+
+        synchronized (this) {
+            var activeJob = activeJobsBySyncKey.get(syncKey);
+
+            if (activeJob == null) {
+                var job = createJob(syncKey, request, subscriptionId);
+
+                try {
+                    execute(job);
+                } catch (RejectedExecutionException e) {
+                    jobsById.remove(job.getJobId());
+
+                    throw e;
+                }
+
+                activeJobsBySyncKey.put(syncKey, job);
+
+                logger.info("Queued sync job " + job.getJobId() + " for ICal URLs " + job.getSourceCalendarIcalUrls() + ".");
+
+                return job;
+            }
+
+            if (activeJob.getStatus() == SyncJobStatus.QUEUED) {
+                logger.info("Attaching sync request to queued job " + activeJob.getJobId() + ".");
+                activeJob.setRequest(request);
+
+                return activeJob;
+            }
+
+            var followUpJob = followUpJobsBySyncKey.get(syncKey);
+
+            if (followUpJob == null) {
+                followUpJob = createJob(syncKey, request, subscriptionId);
+                followUpJobsBySyncKey.put(syncKey, followUpJob);
+            } else {
+                followUpJob.setRequest(request);
+            }
+
+            logger.info("Sync job " + activeJob.getJobId() + " is running, follow-up job " + followUpJob.getJobId() + " will run after it.");
+
+            return followUpJob;
+        }
+    }
+
+    public SyncJob getJob(String jobId) {
+        return jobsById.get(jobId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        deadlineScheduler.shutdownNow();
+    }
+
+    public static List<String> getSourceCalendarIcalUrls(IcalToGoogleCalendarSyncRequest request) {
+        return getSourceCalendarIcalUrls(request.getSourceCalendarIcalUrl(), request.getSourceCalendarIcalUrls());
+    }
+
+    public static List<String> getSourceCalendarIcalUrls(String sourceCalendarIcalUrl, List<String> sourceCalendarIcalUrls) {
+        if (sourceCalendarIcalUrls == null || sourceCalendarIcalUrls.isEmpty())
+            return sourceCalendarIcalUrl != null ? List.of(sourceCalendarIcalUrl) : List.of();
+
+        return sourceCalendarIcalUrls.stream().distinct().collect(Collectors.toList());
+    }
+
+    private SyncJob createJob(String syncKey, IcalToGoogleCalendarSyncRequest request, String subscriptionId) {
+        var job = new SyncJob(UUID.randomUUID().toString(), syncKey, request, subscriptionId);
+        jobsById.put(job.getJobId(), job);
+
+        return job;
+    }
+
+    private void execute(SyncJob job) {
+        job.getProgress().setDeadline(Instant.now().plus(jobDeadline));
+        var jobFuture = jobExecutor.submit(() -> runJob(job));
+
+        deadlineScheduler.schedule(() -> {
+            if (!jobFuture.isDone()) {
+                logger.warn("Sync job " + job.getJobId() + " exceeded its deadline, cancelling it.");
+
+                job.markFinished(SyncJobStatus.TIMED_OUT, "Deadline of " + job.getProgress().getDeadline() + " exceeded.");
+                jobFuture.cancel(true);
+
+                if (job.getStartedAt() == null)
+                    onJobFinished(job);
+            }
+        }, jobDeadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void runJob(SyncJob job) {
+        try {
+            var request = job.markRunning();
+
+            if (request == null)
+                return;
+
+            job.getProgress().checkDeadline();
+            syncService.sync(getSourceCalendarIcalUrls(request), request.getGoogleUserAccessToken(),
+                    request.getGoogleUserRefreshToken(), request.getTargetCalendarName(), job.getProgress());
+
+            job.markFinished(SyncJobStatus.SUCCEEDED, null);
+        } catch (Exception e) {
+            var deadlineExceeded = Instant.now().isAfter(job.getProgress().getDeadline());
+
+            job.markFinished(deadlineExceeded ? SyncJobStatus.TIMED_OUT : SyncJobStatus.FAILED, e.getMessage());
+            logger.error("Sync job " + job.getJobId() + " failed.", e);
+        } finally {
+            onJobFinished(job);
+        }
+    }
+
+    private synchronized void onJobFinished(SyncJob job) {
+        if (activeJobsBySyncKey.get(job.getSyncKey()) != job)
+            return;
+
+        activeJobsBySyncKey.remove(job.getSyncKey());
+        var followUpJob = followUpJobsBySyncKey.remove(job.getSyncKey());
+
+        if (followUpJob == null)
+            return;
+
+        try {
+            execute(followUpJob);
+            activeJobsBySyncKey.put(followUpJob.getSyncKey(), followUpJob);
+        } catch (RejectedExecutionException e) {
+            followUpJob.markFinished(SyncJobStatus.FAILED, "Sync job queue is full, follow-up sync was dropped.");
+        }
+    }
+
+    private void removeExpiredJobs() {
+        var expiryTime = Instant.now().minus(finishedJobRetention);
+
+        jobsById.values().removeIf(job -> job.getStatus().isFinished() && job.getFinishedAt().isBefore(expiryTime));
+    }
+}
@@ -0,0 +1,13 @@
+package net.nlacombe.moirai.sync;
+
+public enum SyncJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    TIMED_OUT;
+
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
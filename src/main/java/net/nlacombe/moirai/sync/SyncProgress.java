@@ -0,0 +1,100 @@
+package net.nlacombe.moirai.sync;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SyncProgress {
+
+    private volatile Instant deadline;
+    private String subscriptionId;
+    private AtomicInteger eventsRead;
+    private AtomicInteger eventsCreated;
+    private AtomicInteger eventsUpdated;
+    private AtomicInteger eventsDeleted;
+    private AtomicInteger eventsFailed;
+
+    public SyncProgress() {
+        this(null);
+    }
+
+    public SyncProgress(Instant deadline) {
+        this.deadline = deadline;
+        this.eventsRead = new AtomicInteger();
+        this.eventsCreated = new AtomicInteger();
+        this.eventsUpdated = new AtomicInteger();
+        this.eventsDeleted = new AtomicInteger();
+        this.eventsFailed = new AtomicInteger();
+    }
+
+    public void checkDeadline() {
+        if (Thread.currentThread().isInterrupted() || (deadline != null && Instant.now().isAfter(deadline)))
+            throw new RuntimeException("Sync deadline of " + deadline + " exceeded.");
+    }
+
+    public void addEventsRead(int eventCount) {
+        eventsRead.addAndGet(eventCount);
+    }
+
+    public void incrementEventsCreated() {
+        eventsCreated.incrementAndGet();
+    }
+
+    public void incrementEventsUpdated() {
+        eventsUpdated.incrementAndGet();
+    }
+
+    public void incrementEventsDeleted() {
+        eventsDeleted.incrementAndGet();
+    }
+
+    public void incrementEventsFailed() {
+        eventsFailed.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "SyncProgress{" +
+                "eventsRead=" + eventsRead +
+                ", eventsCreated=" + eventsCreated +
+                ", eventsUpdated=" + eventsUpdated +
+                ", eventsDeleted=" + eventsDeleted +
+                ", eventsFailed=" + eventsFailed +
+                '}';
+    }
+
+    void setDeadline(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    void setSubscriptionId(String subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
+
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    public int getEventsRead() {
+        return eventsRead.get();
+    }
+
+    public int getEventsCreated() {
+        return eventsCreated.get();
+    }
+
+    public int getEventsUpdated() {
+        return eventsUpdated.get();
+    }
+
+    public int getEventsDeleted() {
+        return eventsDeleted.get();
+    }
+
+    public int getEventsFailed() {
+        return eventsFailed.get();
+    }
+}
@@ -0,0 +1,84 @@
+package net.nlacombe.moirai.sync;
+
+import net.nlacombe.moirai.ical.FeedValidators;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SyncState {
+
+    private String calendarId;
+    private Map<String, FeedValidators> feedValidatorsBySourceUrl;
+    private Map<String, SyncedEvent> syncedEventsBySyncUid;
+    private int logRecordCount;
+
+    public SyncState(String calendarId) {
+        this.calendarId = calendarId;
+        this.feedValidatorsBySourceUrl = new LinkedHashMap<>();
+        this.syncedEventsBySyncUid = new LinkedHashMap<>();
+    }
+
+    public SyncedEvent getSyncedEvent(String syncUid) {
+        return syncedEventsBySyncUid.get(syncUid);
+    }
+
+    public Collection<SyncedEvent> getSyncedEvents() {
+        return syncedEventsBySyncUid.values();
+    }
+
+    public void putSyncedEvent(SyncedEvent syncedEvent) {
+        syncedEventsBySyncUid.put(syncedEvent.getSyncUid(), syncedEvent);
+    }
+
+    public void removeSyncedEvent(String syncUid) {
+        syncedEventsBySyncUid.remove(syncUid);
+    }
+
+    public void removeEventsStartingBefore(Instant instant) {
+        syncedEventsBySyncUid.values().removeIf(syncedEvent -> syncedEvent.getStart() != null && syncedEvent.getStart().isBefore(instant));
+    }
+
+    public int size() {
+        return syncedEventsBySyncUid.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SyncState{" +
+                "calendarId='" + calendarId + '\'' +
+                ", feedValidators=" + feedValidatorsBySourceUrl +
+                ", syncedEvents=" + syncedEventsBySyncUid.size() +
+                '}';
+    }
+
+    public String getCalendarId() {
+        return calendarId;
+    }
+
+    void setCalendarId(String calendarId) {
+        this.calendarId = calendarId;
+    }
+
+    public FeedValidators getFeedValidators(String sourceUrl) {
+        return feedValidatorsBySourceUrl.get(sourceUrl);
+    }
+
+    public Map<String, FeedValidators> getFeedValidatorsBySourceUrl() {
+        return Collections.unmodifiableMap(feedValidatorsBySourceUrl);
+    }
+
+    public void setFeedValidators(String sourceUrl, FeedValidators feedValidators) {
+        feedValidatorsBySourceUrl.put(sourceUrl, feedValidators);
+    }
+
+    int getLogRecordCount() {
+        return logRecordCount;
+    }
+
+    void setLogRecordCount(int logRecordCount) {
+        this.logRecordCount = logRecordCount;
+    }
+}
@@ -0,0 +1,89 @@
+package net.nlacombe.moirai.sync;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.ical.FeedValidators;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class SyncStateLog implements Closeable {
+
+    private SyncStateStore store;
+    private String syncKey;
+    private SyncState state;
+    private FileChannel channel;
+    private BufferedWriter writer;
+
+    SyncStateLog(SyncStateStore store, String syncKey, SyncState state, FileChannel channel) {
+        this.store = store;
+        this.syncKey = syncKey;
+        this.state = state;
+        this.channel = channel;
+        this.writer = channel != null ? new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8)) : null;
+    }
+
+    public void recordEventSynced(Event event, String googleEventId) {
+        var syncedEvent = SyncedEvent.of(event, googleEventId);
+
+        state.putSyncedEvent(syncedEvent);
+        append(SyncStateStore.toEventRecord(syncedEvent));
+    }
+
+    public void recordEventRemoved(Event event) {
+        state.removeSyncedEvent(event.getSyncUid());
+        append(SyncStateStore.toRemovedRecord(event));
+    }
+
+    public void commit(Map<String, FeedValidators> feedValidatorsBySourceUrl) {
+        feedValidatorsBySourceUrl.forEach(state::setFeedValidators);
+
+        if (writer == null)
+            return;
+
+        feedValidatorsBySourceUrl.forEach((sourceUrl, feedValidators) -> append(SyncStateStore.toFeedRecord(sourceUrl, feedValidators)));
+
+        append(new SyncStateRecord(SyncStateRecord.COMMIT));
+
+        try {
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Error committing sync state log", e);
+        }
+
+        if (store.shouldCompact(state)) {
+            close();
+            store.rewrite(syncKey, state, true);
+            channel = store.openForAppend(syncKey);
+            writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (writer == null)
+            return;
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing sync state log", e);
+        }
+    }
+
+    private void append(SyncStateRecord record) {
+        if (writer == null)
+            return;
+
+        try {
+            state.setLogRecordCount(state.getLogRecordCount() + store.write(writer, record));
+        } catch (IOException e) {
+            throw new RuntimeException("Error appending to sync state log", e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package net.nlacombe.moirai.sync;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncStateRecord {
+
+    static final String CALENDAR = "calendar";
+    static final String FEED = "feed";
+    static final String EVENT = "event";
+    static final String REMOVED = "removed";
+    static final String COMMIT = "commit";
+
+    private String type;
+    private String calendarId;
+    private String icalUid;
+    private Long recurrenceIdEpochSecond;
+    private String googleEventId;
+    private String contentFingerprint;
+    private Long startEpochSecond;
+    private Long syncedAtEpochMilli;
+    private String sourceUrl;
+    private String etag;
+    private String lastModified;
+    private String contentHash;
+    private Long fetchedAtEpochMilli;
+
+    public SyncStateRecord() {
+    }
+
+    SyncStateRecord(String type) {
+        this.type = type;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getCalendarId() {
+        return calendarId;
+    }
+
+    public void setCalendarId(String calendarId) {
+        this.calendarId = calendarId;
+    }
+
+    public String getIcalUid() {
+        return icalUid;
+    }
+
+    public void setIcalUid(String icalUid) {
+        this.icalUid = icalUid;
+    }
+
+    public Long getRecurrenceIdEpochSecond() {
+        return recurrenceIdEpochSecond;
+    }
+
+    public void setRecurrenceIdEpochSecond(Long recurrenceIdEpochSecond) {
+        this.recurrenceIdEpochSecond = recurrenceIdEpochSecond;
+    }
+
+    public String getGoogleEventId() {
+        return googleEventId;
+    }
+
+    public void setGoogleEventId(String googleEventId) {
+        this.googleEventId = googleEventId;
+    }
+
+    public String getContentFingerprint() {
+        return contentFingerprint;
+    }
+
+    public void setContentFingerprint(String contentFingerprint) {
+        this.contentFingerprint = contentFingerprint;
+    }
+
+    public Long getStartEpochSecond() {
+        return startEpochSecond;
+    }
+
+    public void setStartEpochSecond(Long startEpochSecond) {
+        this.startEpochSecond = startEpochSecond;
+    }
+
+    public Long getSyncedAtEpochMilli() {
+        return syncedAtEpochMilli;
+    }
+
+    public void setSyncedAtEpochMilli(Long syncedAtEpochMilli) {
+        this.syncedAtEpochMilli = syncedAtEpochMilli;
+    }
+
+    public String getSourceUrl() {
+        return sourceUrl;
+    }
+
+    public void setSourceUrl(String sourceUrl) {
+        this.sourceUrl = sourceUrl;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Long getFetchedAtEpochMilli() {
+        return fetchedAtEpochMilli;
+    }
+
+    public void setFetchedAtEpochMilli(Long fetchedAtEpochMilli) {
+        this.fetchedAtEpochMilli = fetchedAtEpochMilli;
+    }
+}
@@ -0,0 +1,231 @@
+package net.nlacombe.moirai.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.ical.FeedValidators;
+import net.nlacombe.moirai.util.Sha256;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Base64;
+
+@Component
+public class SyncStateStore {
+
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 1000;
+    private static final Logger logger = LoggerFactory.getLogger(SyncStateStore.class);
+
+    private Path directory;
+    private ObjectMapper objectMapper;
+
+    @Inject
+    public SyncStateStore(ObjectMapper objectMapper, @Value("${sync.state.directory}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = StringUtils.isBlank(directory) ? null : Paths.get(directory);
+    }
+
+    public SyncState load(String syncKey) {
+        if (directory == null)
+            return null;
+
+        var logFile = getLogFile(syncKey);
+
+        if (!Files.exists(logFile))
+            return null;
+
+        try (var reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            var state = new SyncState(null);
+            var recordCount = 0;
+            var committed = false;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                SyncStateRecord record;
+
+                try {
+                    record = objectMapper.readValue(line, SyncStateRecord.class);
+                } catch (IOException e) {
+                    logger.warn("Sync state log \"" + logFile + "\" has a truncated record at line " + (recordCount + 1) + ".");
+                    committed = false;
+                    break;
+                }
+
+                apply(state, record);
+                recordCount++;
+                committed = SyncStateRecord.COMMIT.equals(record.getType());
+            }
+
+            if (!committed || state.getCalendarId() == null) {
+                logger.info("Sync state log \"" + logFile + "\" ends with an uncommitted run, it will be rebuilt.");
+                return null;
+            }
+
+            state.setLogRecordCount(recordCount);
+
+            return state;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable sync state log \"" + logFile + "\".", e);
+
+            return null;
+        }
+    }
+
+    public SyncStateLog open(String syncKey, SyncState state, boolean rewrite) {
+        if (directory == null)
+            return new SyncStateLog(this, syncKey, state, null);
+
+        if (rewrite)
+            rewrite(syncKey, state, false);
+
+        return new SyncStateLog(this, syncKey, state, openForAppend(syncKey));
+    }
+
+    public void remove(String syncKey) {
+        if (directory == null)
+            return;
+
+        try {
+            Files.deleteIfExists(getLogFile(syncKey));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    boolean shouldCompact(SyncState state) {
+        return state.getLogRecordCount() > MIN_RECORDS_BEFORE_COMPACTION && state.getLogRecordCount() > 2 * (state.size() + 2);
+    }
+
+    void rewrite(String syncKey, SyncState state, boolean committed) {
+        var logFile = getLogFile(syncKey);
+
+        try {
+            Files.createDirectories(directory);
+            var temporaryFile = Files.createTempFile(directory, logFile.getFileName().toString(), ".tmp");
+
+            try (var channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE);
+                 var writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+
+                var recordCount = 0;
+                var calendarRecord = new SyncStateRecord(SyncStateRecord.CALENDAR);
+                calendarRecord.setCalendarId(state.getCalendarId());
+                recordCount += write(writer, calendarRecord);
+
+                for (var feedValidators : state.getFeedValidatorsBySourceUrl().entrySet())
+                    recordCount += write(writer, toFeedRecord(feedValidators.getKey(), feedValidators.getValue()));
+
+                for (var syncedEvent : state.getSyncedEvents())
+                    recordCount += write(writer, toEventRecord(syncedEvent));
+
+                if (committed)
+                    recordCount += write(writer, new SyncStateRecord(SyncStateRecord.COMMIT));
+
+                writer.flush();
+                channel.force(true);
+                state.setLogRecordCount(recordCount);
+            }
+
+            Files.move(temporaryFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing sync state log \"" + logFile + "\"", e);
+        }
+    }
+
+    FileChannel openForAppend(String syncKey) {
+        var logFile = getLogFile(syncKey);
+
+        try {
+            Files.createDirectories(directory);
+
+            return FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening sync state log \"" + logFile + "\"", e);
+        }
+    }
+
+    int write(BufferedWriter writer, SyncStateRecord record) throws IOException {
+        writer.write(objectMapper.writeValueAsString(record));
+        writer.newLine();
+
+        return 1;
+    }
+
+    static SyncStateRecord toEventRecord(SyncedEvent syncedEvent) {
+        var record = new SyncStateRecord(SyncStateRecord.EVENT);
+        record.setIcalUid(syncedEvent.getIcalUid());
+        record.setRecurrenceIdEpochSecond(syncedEvent.getRecurrenceId() != null ? syncedEvent.getRecurrenceId().getEpochSecond() : null);
+        record.setGoogleEventId(syncedEvent.getGoogleEventId());
+        record.setContentFingerprint(syncedEvent.getContentFingerprint());
+        record.setStartEpochSecond(syncedEvent.getStart() != null ? syncedEvent.getStart().getEpochSecond() : null);
+        record.setSyncedAtEpochMilli(syncedEvent.getSyncedAt().toEpochMilli());
+
+        return record;
+    }
+
+    static SyncStateRecord toRemovedRecord(Event event) {
+        var record = new SyncStateRecord(SyncStateRecord.REMOVED);
+        record.setIcalUid(event.getIcalUid());
+        record.setRecurrenceIdEpochSecond(event.isRecurrenceOverride() ? event.getRecurrenceIdEpochSecond() : null);
+
+        return record;
+    }
+
+    static SyncStateRecord toFeedRecord(String sourceUrl, FeedValidators feedValidators) {
+        var record = new SyncStateRecord(SyncStateRecord.FEED);
+        record.setSourceUrl(sourceUrl);
+        record.setEtag(feedValidators.getEtag());
+        record.setLastModified(feedValidators.getLastModified());
+        record.setContentHash(feedValidators.getContentHash() != null ? Base64.getEncoder().encodeToString(feedValidators.getContentHash()) : null);
+        record.setFetchedAtEpochMilli(feedValidators.getFetchedAt().toEpochMilli());
+
+        return record;
+    }
+
+    private static void apply(SyncState state, SyncStateRecord record) {
+        switch (record.getType()) {
+            case SyncStateRecord.CALENDAR:
+                state.setCalendarId(record.getCalendarId());
+                break;
+            case SyncStateRecord.FEED:
+                if (record.getSourceUrl() == null)
+                    break;
+
+                state.setFeedValidators(record.getSourceUrl(), new FeedValidators(record.getEtag(), record.getLastModified(),
+                        record.getContentHash() != null ? Base64.getDecoder().decode(record.getContentHash()) : null,
+                        Instant.ofEpochMilli(record.getFetchedAtEpochMilli())));
+                break;
+            case SyncStateRecord.EVENT:
+                state.putSyncedEvent(new SyncedEvent(record.getIcalUid(), getRecurrenceId(record), record.getGoogleEventId(), record.getContentFingerprint(),
+                        record.getStartEpochSecond() != null ? Instant.ofEpochSecond(record.getStartEpochSecond()) : null,
+                        Instant.ofEpochMilli(record.getSyncedAtEpochMilli())));
+                break;
+            case SyncStateRecord.REMOVED:
+                state.removeSyncedEvent(getRecurrenceId(record) != null ? Event.getSyncUid(record.getIcalUid(), getRecurrenceId(record)) : record.getIcalUid());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Instant getRecurrenceId(SyncStateRecord record) {
+        return record.getRecurrenceIdEpochSecond() != null ? Instant.ofEpochSecond(record.getRecurrenceIdEpochSecond()) : null;
+    }
+
+    private Path getLogFile(String syncKey) {
+        return directory.resolve(Sha256.toKey(syncKey) + ".log");
+    }
+}
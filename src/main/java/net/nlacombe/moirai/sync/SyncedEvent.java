@@ -0,0 +1,74 @@
+package net.nlacombe.moirai.sync;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventFingerprint;
+
+import java.time.Instant;
+
+public class SyncedEvent {
+
+    private String icalUid;
+    private Instant recurrenceId;
+    private String googleEventId;
+    private String contentFingerprint;
+    private Instant start;
+    private Instant syncedAt;
+
+    public SyncedEvent(String icalUid, Instant recurrenceId, String googleEventId, String contentFingerprint, Instant start, Instant syncedAt) {
+        this.icalUid = icalUid;
+        this.recurrenceId = recurrenceId;
+        this.googleEventId = googleEventId;
+        this.contentFingerprint = contentFingerprint;
+        this.start = start;
+        this.syncedAt = syncedAt;
+    }
+
+    public static SyncedEvent of(Event event, String googleEventId) {
+        return new SyncedEvent(event.getIcalUid(),
+                event.isRecurrenceOverride() ? Instant.ofEpochSecond(event.getRecurrenceIdEpochSecond()) : null,
+                googleEventId,
+                EventFingerprint.compute(event),
+                event.hasStart() && !event.isRecurring() ? Instant.ofEpochSecond(event.getStartEpochSecond()) : null,
+                Instant.now());
+    }
+
+    @Override
+    public String toString() {
+        return "SyncedEvent{" +
+                "icalUid='" + icalUid + '\'' +
+                ", recurrenceId=" + recurrenceId +
+                ", googleEventId='" + googleEventId + '\'' +
+                ", contentFingerprint='" + contentFingerprint + '\'' +
+                ", start=" + start +
+                ", syncedAt=" + syncedAt +
+                '}';
+    }
+
+    public String getSyncUid() {
+        return recurrenceId != null ? Event.getSyncUid(icalUid, recurrenceId) : icalUid;
+    }
+
+    public String getIcalUid() {
+        return icalUid;
+    }
+
+    public Instant getRecurrenceId() {
+        return recurrenceId;
+    }
+
+    public String getGoogleEventId() {
+        return googleEventId;
+    }
+
+    public String getContentFingerprint() {
+        return contentFingerprint;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getSyncedAt() {
+        return syncedAt;
+    }
+}
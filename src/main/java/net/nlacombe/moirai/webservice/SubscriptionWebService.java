@@ -0,0 +1,90 @@
+package net.nlacombe.moirai.webservice;
+
+import net.nlacombe.moirai.dto.SubscriptionDto;
+import net.nlacombe.moirai.subscription.Subscription;
+import net.nlacombe.moirai.subscription.SubscriptionScheduler;
+import net.nlacombe.moirai.subscription.SubscriptionStore;
+import net.nlacombe.moirai.sync.SyncJobService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+public class SubscriptionWebService {
+
+    static final String REFRESH_TOKEN_HEADER = "X-Google-User-Refresh-Token";
+
+    private SubscriptionStore subscriptionStore;
+    private SubscriptionScheduler subscriptionScheduler;
+
+    @Inject
+    public SubscriptionWebService(SubscriptionStore subscriptionStore, SubscriptionScheduler subscriptionScheduler) {
+        this.subscriptionStore = subscriptionStore;
+        this.subscriptionScheduler = subscriptionScheduler;
+    }
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @RequestMapping(value = "/subscriptions", method = RequestMethod.POST)
+    public SubscriptionDto createSubscription(@RequestBody SubscriptionDto subscriptionDto) {
+        SyncWebService.validateSyncRequest(SyncJobService.getSourceCalendarIcalUrls(subscriptionDto.getSourceCalendarIcalUrl(),
+                subscriptionDto.getSourceCalendarIcalUrls()), subscriptionDto.getGoogleUserRefreshToken());
+
+        if (subscriptionDto.getSyncIntervalSeconds() != null && subscriptionDto.getSyncIntervalSeconds() <= 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "syncIntervalSeconds must be positive.");
+
+        var subscription = new Subscription();
+        subscription.setSubscriptionId(UUID.randomUUID().toString());
+        subscription.setSourceCalendarIcalUrl(subscriptionDto.getSourceCalendarIcalUrl());
+        subscription.setSourceCalendarIcalUrls(subscriptionDto.getSourceCalendarIcalUrls());
+        subscription.setGoogleUserAccessToken(subscriptionDto.getGoogleUserAccessToken());
+        subscription.setGoogleUserRefreshToken(subscriptionDto.getGoogleUserRefreshToken());
+        subscription.setTargetCalendarName(subscriptionDto.getTargetCalendarName());
+        subscription.setSyncIntervalSeconds(subscriptionDto.getSyncIntervalSeconds());
+
+        subscriptionStore.save(subscription);
+
+        return toSubscriptionDto(subscription);
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @RequestMapping(value = "/subscriptions/{subscriptionId}", method = RequestMethod.DELETE)
+    public void deleteSubscription(@PathVariable("subscriptionId") String subscriptionId,
+                                   @RequestHeader(REFRESH_TOKEN_HEADER) String googleUserRefreshToken) {
+
+        var subscription = subscriptionStore.find(subscriptionId);
+
+        if (subscription == null || !isOwner(subscription, googleUserRefreshToken))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No subscription with id \"" + subscriptionId + "\".");
+
+        subscriptionStore.delete(subscriptionId);
+        subscriptionScheduler.unschedule(subscriptionId);
+    }
+
+    private static boolean isOwner(Subscription subscription, String googleUserRefreshToken) {
+        return MessageDigest.isEqual(subscription.getGoogleUserRefreshToken().getBytes(StandardCharsets.UTF_8),
+                googleUserRefreshToken.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SubscriptionDto toSubscriptionDto(Subscription subscription) {
+        var subscriptionDto = new SubscriptionDto();
+        subscriptionDto.setSubscriptionId(subscription.getSubscriptionId());
+        subscriptionDto.setSourceCalendarIcalUrl(subscription.getSourceCalendarIcalUrl());
+        subscriptionDto.setSourceCalendarIcalUrls(subscription.getSourceCalendarIcalUrls());
+        subscriptionDto.setTargetCalendarName(subscription.getTargetCalendarName());
+        subscriptionDto.setSyncIntervalSeconds(subscription.getSyncIntervalSeconds());
+
+        return subscriptionDto;
+    }
+}
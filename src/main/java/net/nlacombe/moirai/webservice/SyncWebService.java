@@ -1,32 +1,122 @@
 package net.nlacombe.moirai.webservice;
 
 import net.nlacombe.moirai.dto.IcalToGoogleCalendarSyncRequest;
-import net.nlacombe.moirai.service.SyncService;
+import net.nlacombe.moirai.dto.SyncJobDto;
+import net.nlacombe.moirai.sync.SyncJob;
+import net.nlacombe.moirai.sync.SyncJobService;
+import net.nlacombe.moirai.sync.SyncJobStatus;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.inject.Inject;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1")
 public class SyncWebService {
 
-    private SyncService syncService;
+    private static final int MAX_SOURCE_CALENDARS = 20;
+
+    private SyncJobService syncJobService;
+    private Duration syncJobDeadline;
 
     @Inject
-    public SyncWebService(SyncService syncService) {
-        this.syncService = syncService;
+    public SyncWebService(SyncJobService syncJobService, @Value("${sync.jobs.deadlineSeconds}") long syncJobDeadlineSeconds) {
+        this.syncJobService = syncJobService;
+        this.syncJobDeadline = Duration.ofSeconds(syncJobDeadlineSeconds);
     }
 
     @RequestMapping(value = "/syncIcalWithGoogleCalendar", method = RequestMethod.POST)
-    public void syncIcalWithGoogleCalendar(@RequestBody IcalToGoogleCalendarSyncRequest request) {
-        String sourceCalendarIcalUrl = request.getSourceCalendarIcalUrl();
-        String googleUserAccessToken = request.getGoogleUserAccessToken();
-        String googleUserRefreshToken = request.getGoogleUserRefreshToken();
+    public ResponseEntity<SyncJobDto> syncIcalWithGoogleCalendar(@RequestBody IcalToGoogleCalendarSyncRequest request,
+                                                                 @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        var sourceCalendarIcalUrls = SyncJobService.getSourceCalendarIcalUrls(request);
+        validateSyncRequest(sourceCalendarIcalUrls, request.getGoogleUserRefreshToken());
+        request.setSourceCalendarIcalUrls(sourceCalendarIcalUrls);
+
+        SyncJob job;
+
+        try {
+            job = syncJobService.submit(request);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Sync job queue is full, retry later.");
+        }
+
+        if (async) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/syncJobs/" + job.getJobId()))
+                    .body(toSyncJobDto(job));
+        }
+
+        job.awaitCompletion(syncJobDeadline.multipliedBy(2));
+
+        if (job.getStatus() != SyncJobStatus.SUCCEEDED)
+            throw new RuntimeException("Sync job " + job.getJobId() + " " + job.getStatus() + ": " + job.getErrorMessage());
 
-        syncService.sync(sourceCalendarIcalUrl, googleUserAccessToken, googleUserRefreshToken);
+        return ResponseEntity.ok().build();
     }
 
+    @RequestMapping(value = "/syncJobs/{jobId}", method = RequestMethod.GET)
+    public SyncJobDto getSyncJob(@PathVariable("jobId") String jobId) {
+        var job = syncJobService.getJob(jobId);
+
+        if (job == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No sync job with id \"" + jobId + "\".");
+
+        return toSyncJobDto(job);
+    }
+
+    static void validateSyncRequest(List<String> sourceCalendarIcalUrls, String googleUserRefreshToken) {
+        if (StringUtils.isBlank(googleUserRefreshToken))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "googleUserRefreshToken is required.");
+
+        if (sourceCalendarIcalUrls.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sourceCalendarIcalUrl or sourceCalendarIcalUrls is required.");
+
+        if (sourceCalendarIcalUrls.size() > MAX_SOURCE_CALENDARS)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_SOURCE_CALENDARS + " source calendars can be synced together.");
+
+        sourceCalendarIcalUrls.forEach(SyncWebService::validateSourceCalendarIcalUrl);
+    }
+
+    private static void validateSourceCalendarIcalUrl(String sourceCalendarIcalUrl) {
+        try {
+            var scheme = URI.create(sourceCalendarIcalUrl).getScheme();
+
+            if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme))
+                throw new IllegalArgumentException("Unsupported URL scheme: " + scheme);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sourceCalendarIcalUrl must be an http(s) URL.", e);
+        }
+    }
+
+    private static SyncJobDto toSyncJobDto(SyncJob job) {
+        var progress = job.getProgress();
+
+        var syncJobDto = new SyncJobDto();
+        syncJobDto.setJobId(job.getJobId());
+        syncJobDto.setStatus(job.getStatus().name());
+        syncJobDto.setQueuedAt(job.getQueuedAt());
+        syncJobDto.setStartedAt(job.getStartedAt());
+        syncJobDto.setFinishedAt(job.getFinishedAt());
+        syncJobDto.setErrorMessage(job.getErrorMessage());
+        syncJobDto.setEventsRead(progress.getEventsRead());
+        syncJobDto.setEventsCreated(progress.getEventsCreated());
+        syncJobDto.setEventsUpdated(progress.getEventsUpdated());
+        syncJobDto.setEventsDeleted(progress.getEventsDeleted());
+        syncJobDto.setEventsFailed(progress.getEventsFailed());
+
+        return syncJobDto;
+    }
 }
@@ -0,0 +1,54 @@
+package net.nlacombe.moirai.googlecalendar;
+
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GoogleApiCallExecutorTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-15T14:00:00Z");
+
+    @Test
+    public void retryAfterSecondsAreRead() {
+        assertThat(GoogleApiCallExecutor.parseRetryAfter("120", NOW)).isEqualTo(Duration.ofSeconds(120));
+    }
+
+    @Test
+    public void retryAfterHttpDateIsReadAsTheDelayUntilThatDate() {
+        assertThat(GoogleApiCallExecutor.parseRetryAfter("Thu, 15 Jan 2026 14:00:30 GMT", NOW)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(GoogleApiCallExecutor.parseRetryAfter("Thu, 15 Jan 2026 13:59:00 GMT", NOW)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void invalidRetryAfterIsIgnored() {
+        assertThat(GoogleApiCallExecutor.parseRetryAfter("soon", NOW)).isNull();
+        assertThat(GoogleApiCallExecutor.parseRetryAfter("", NOW)).isNull();
+    }
+
+    @Test
+    public void successfulCallIsTimedWithItsResponseStatus() throws Exception {
+        var meterRegistry = new SimpleMeterRegistry();
+        var callExecutor = new GoogleApiCallExecutor(meterRegistry, 1000, 1000, 1, 1, 1, 1);
+        var transport = new MockHttpTransport.Builder()
+                .setLowLevelHttpResponse(new MockLowLevelHttpResponse()
+                        .setStatusCode(201)
+                        .setContentType("application/json")
+                        .setContent("{\"id\":\"event-1\"}"))
+                .build();
+        var calendar = new Calendar.Builder(transport, JacksonFactory.getDefaultInstance(), null).setApplicationName("test").build();
+
+        var event = callExecutor.execute("account", "events.insert", calendar.events().insert("calendar", new Event()));
+
+        assertThat(event.getId()).isEqualTo("event-1");
+        assertThat(meterRegistry.get("moirai.google.api.calls").tag("method", "events.insert").tag("status", "201").timer().count()).isEqualTo(1);
+    }
+}
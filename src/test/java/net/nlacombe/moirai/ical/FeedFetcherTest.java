@@ -0,0 +1,139 @@
+package net.nlacombe.moirai.ical;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FeedFetcherTest {
+
+    private static final String ETAG = "\"feed-1\"";
+
+    private HttpServer server;
+    private byte[] content;
+    private FeedFetcher feedFetcher;
+
+    @Before
+    public void setUp() throws Exception {
+        content = getContent(3);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/feed.ics", this::sendFeed);
+        server.createContext("/stalled.ics", this::sendStalledFeed);
+        server.start();
+        feedFetcher = new FeedFetcher(new SimpleMeterRegistry(), 1000, 1000, 5000, 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void gzippedFeedIsParsedAndHashedWhileStreaming() throws Exception {
+        var feed = feedFetcher.fetch(getUrl("/feed.ics"), null, null);
+
+        assertThat(feed.isModified()).isTrue();
+        assertThat(feed.getParsedFeed().getEventCount()).isEqualTo(3);
+        assertThat(feed.getParsedFeed().getContentLength()).isEqualTo(content.length);
+        assertThat(feed.getValidators().getContentHash()).isEqualTo(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(feed.getValidators().getEtag()).isEqualTo(ETAG);
+    }
+
+    @Test
+    public void notModifiedFeedIsNotParsed() {
+        var validators = feedFetcher.fetch(getUrl("/feed.ics"), null, null).getValidators();
+
+        var feed = feedFetcher.fetch(getUrl("/feed.ics"), validators, null);
+
+        assertThat(feed.isModified()).isFalse();
+        assertThat(feed.getParsedFeed()).isNull();
+    }
+
+    @Test
+    public void unchangedContentIsNotModified() {
+        var validators = feedFetcher.fetch(getUrl("/feed.ics"), null, null).getValidators();
+        var validatorsWithoutEtag = new FeedValidators(null, null, validators.getContentHash(), Instant.now());
+
+        var feed = feedFetcher.fetch(getUrl("/feed.ics"), validatorsWithoutEtag, null);
+
+        assertThat(feed.isModified()).isFalse();
+        assertThat(feed.getParsedFeed().getEventCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void feedLargerThanTheLimitOnceDecodedIsRejected() {
+        content = getContent(5000);
+        feedFetcher = new FeedFetcher(new SimpleMeterRegistry(), 1000, 1000, 5000, 64 * 1024);
+
+        assertThatThrownBy(() -> feedFetcher.fetch(getUrl("/feed.ics"), null, null))
+                .hasStackTraceContaining("bytes once decoded");
+    }
+
+    @Test
+    public void stalledBodyTimesOut() {
+        assertThatThrownBy(() -> feedFetcher.fetch(getUrl("/stalled.ics"), null, null))
+                .hasStackTraceContaining("No data received for 1000 ms");
+    }
+
+    private void sendFeed(HttpExchange exchange) throws IOException {
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        var gzippedContent = new ByteArrayOutputStream();
+
+        try (var gzipOutputStream = new GZIPOutputStream(gzippedContent)) {
+            gzipOutputStream.write(content);
+        }
+
+        exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.sendResponseHeaders(200, gzippedContent.size());
+
+        try (var responseBody = exchange.getResponseBody()) {
+            gzippedContent.writeTo(responseBody);
+        }
+    }
+
+    private void sendStalledFeed(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, content.length);
+
+        try (var responseBody = exchange.getResponseBody()) {
+            responseBody.write(content, 0, content.length / 2);
+            responseBody.flush();
+            Thread.sleep(3000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private String getUrl(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static byte[] getContent(int eventCount) {
+        var ics = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+
+        for (var i = 0; i < eventCount; i++)
+            ics.append("BEGIN:VEVENT\r\nUID:event-").append(i).append("\r\nDTSTART:20260115T140000Z\r\nSUMMARY:Event ").append(i).append("\r\nEND:VEVENT\r\n");
+
+        return ics.append("END:VCALENDAR\r\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
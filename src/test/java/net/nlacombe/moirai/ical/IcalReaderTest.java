@@ -0,0 +1,252 @@
+package net.nlacombe.moirai.ical;
+
+import net.nlacombe.moirai.domain.Event;
+import net.nlacombe.moirai.domain.EventParticipation;
+import net.nlacombe.moirai.domain.TimeWindow;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IcalReaderTest {
+
+    private static final String FEED_URL = "https://example.com/calendar.ics";
+    private static final ZoneId TARGET_ZONE = ZoneId.of("America/Montreal");
+
+    @Test
+    public void foldedLinesAreUnfolded() {
+        var events = read("BEGIN:VEVENT",
+                "UID:folded",
+                "DTSTART:20260115T140000Z",
+                "SUMMARY:A summary folded",
+                "  over two lines",
+                "DESCRIPTION:Tab",
+                "\tfolded",
+                "END:VEVENT");
+
+        assertThat(events.get(0).getName()).isEqualTo("A summary folded over two lines");
+        assertThat(events.get(0).getDescription()).isEqualTo("Tabfolded");
+    }
+
+    @Test
+    public void escapedTextIsUnescaped() {
+        var events = read("BEGIN:VEVENT",
+                "UID:escaped",
+                "DTSTART:20260115T140000Z",
+                "SUMMARY:Lunch\\, then coffee\\; maybe",
+                "DESCRIPTION:First line\\nSecond line\\NThird \\\\ line",
+                "LOCATION:Room 1\\, floor 2",
+                "END:VEVENT");
+
+        assertThat(events.get(0).getName()).isEqualTo("Lunch, then coffee; maybe");
+        assertThat(events.get(0).getDescription()).isEqualTo("First line\nSecond line\nThird \\ line");
+        assertThat(events.get(0).getLocation()).isEqualTo("Room 1, floor 2");
+    }
+
+    @Test
+    public void utcAndTzidTimesAreConvertedToTheTargetZone() {
+        var events = read("BEGIN:VEVENT",
+                "UID:utc",
+                "DTSTART:20260115T140000Z",
+                "DTEND:20260115T150000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:tzid",
+                "DTSTART;TZID=Europe/Paris:20260715T090000",
+                "DURATION:PT90M",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:floating",
+                "DTSTART:20260115T090000",
+                "END:VEVENT");
+
+        assertThat(events.get(0).getStart()).isEqualTo(ZonedDateTime.parse("2026-01-15T09:00-05:00[America/Montreal]"));
+        assertThat(events.get(0).getEnd().toInstant()).isEqualTo(Instant.parse("2026-01-15T15:00:00Z"));
+        assertThat(events.get(1).getStart().toInstant()).isEqualTo(Instant.parse("2026-07-15T07:00:00Z"));
+        assertThat(events.get(1).getEnd().toInstant()).isEqualTo(Instant.parse("2026-07-15T08:30:00Z"));
+        assertThat(events.get(2).getStart()).isEqualTo(ZonedDateTime.parse("2026-01-15T09:00-05:00[America/Montreal]"));
+        assertThat(events.get(2).getEnd()).isEqualTo(events.get(2).getStart());
+    }
+
+    @Test
+    public void allDayEventsStartAtMidnight() {
+        var events = read("BEGIN:VEVENT",
+                "UID:all-day",
+                "DTSTART;VALUE=DATE:20260115",
+                "DTEND;VALUE=DATE:20260117",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:week",
+                "DTSTART;VALUE=DATE:20260201",
+                "DURATION:P1W",
+                "END:VEVENT");
+
+        assertThat(events.get(0).getStart()).isEqualTo(ZonedDateTime.parse("2026-01-15T00:00-05:00[America/Montreal]"));
+        assertThat(events.get(0).getEnd()).isEqualTo(ZonedDateTime.parse("2026-01-17T00:00-05:00[America/Montreal]"));
+        assertThat(events.get(1).getEnd()).isEqualTo(ZonedDateTime.parse("2026-02-08T00:00-05:00[America/Montreal]"));
+    }
+
+    @Test
+    public void recurrenceLinesAndOverridesAreRead() {
+        var events = read("BEGIN:VEVENT",
+                "UID:weekly",
+                "DTSTART;TZID=America/Montreal:20260105T100000",
+                "DTEND;TZID=America/Montreal:20260105T110000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20260330T150000Z",
+                "EXDATE;TZID=America/Montreal:20260112T100000,20260119T100000",
+                "BEGIN:VALARM",
+                "TRIGGER:-PT15M",
+                "DESCRIPTION:Alarm",
+                "END:VALARM",
+                "SUMMARY:Weekly",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:weekly",
+                "RECURRENCE-ID;TZID=America/Montreal:20260126T100000",
+                "DTSTART;TZID=America/Montreal:20260126T120000",
+                "DTEND;TZID=America/Montreal:20260126T130000",
+                "SUMMARY:Weekly moved",
+                "END:VEVENT");
+
+        var series = events.get(0);
+        var override = events.get(1);
+
+        assertThat(series.isRecurring()).isTrue();
+        assertThat(series.getName()).isEqualTo("Weekly");
+        assertThat(series.getRecurrence()).containsExactly("RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20260330T150000Z",
+                "EXDATE;TZID=America/Montreal:20260112T100000,20260119T100000");
+        assertThat(override.isRecurrenceOverride()).isTrue();
+        assertThat(override.getRecurrenceId().toInstant()).isEqualTo(Instant.parse("2026-01-26T15:00:00Z"));
+        assertThat(override.getSyncUid()).isEqualTo(Event.getSyncUid("weekly", Instant.parse("2026-01-26T15:00:00Z")));
+    }
+
+    @Test
+    public void eventsOutsideTheWindowAreReportedByUid() {
+        var timeWindow = new TimeWindow(Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2026-02-01T00:00:00Z"));
+        var outOfWindowIcalUids = new ArrayList<String>();
+        var parsedFeed = parse("BEGIN:VEVENT",
+                "UID:inside",
+                "DTSTART:20260115T140000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:outside",
+                "DTSTART:20260315T140000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:ended-series",
+                "DTSTART:20250105T140000Z",
+                "RRULE:FREQ=DAILY;UNTIL=20251201T000000Z",
+                "END:VEVENT");
+
+        var events = parsedFeed.stream("", TARGET_ZONE, timeWindow, outOfWindowIcalUids::add).collect(Collectors.toList());
+
+        assertThat(events).extracting(Event::getIcalUid).containsExactly("inside");
+        assertThat(outOfWindowIcalUids).containsExactly("outside", "ended-series");
+    }
+
+    @Test
+    public void eventsOutsideTheParseWindowAreOnlyKeptByUid() {
+        var timeWindow = new TimeWindow(Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2026-02-01T00:00:00Z"));
+        var outOfWindowIcalUids = new ArrayList<String>();
+        var content = toIcs("BEGIN:VEVENT",
+                "UID:inside",
+                "DTSTART:20260115T140000Z",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:past",
+                "DTSTART:20200115T140000Z",
+                "SUMMARY:Past event",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:series",
+                "RECURRENCE-ID:20250301T140000Z",
+                "DTSTART:20250302T140000Z",
+                "END:VEVENT");
+
+        var parsedFeed = IcalReader.parse(FEED_URL, new ByteArrayInputStream(content), timeWindow);
+        var events = parsedFeed.stream("", TARGET_ZONE, null, outOfWindowIcalUids::add).collect(Collectors.toList());
+
+        assertThat(events).extracting(Event::getIcalUid).containsExactly("inside");
+        assertThat(outOfWindowIcalUids).containsExactly("past", "series;RECURRENCE-ID=20250301T140000Z");
+        assertThat(parsedFeed.containsAllEventsIn(timeWindow)).isTrue();
+        assertThat(parsedFeed.containsAllEventsIn(new TimeWindow(Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2026-02-01T00:00:00Z"))))
+                .isFalse();
+    }
+
+    @Test
+    public void participationDefaultsToNeedsAction() {
+        var events = read("BEGIN:VEVENT",
+                "UID:accepted",
+                "DTSTART:20260115T140000Z",
+                "PARTSTAT:ACCEPTED",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:default",
+                "DTSTART:20260115T140000Z",
+                "END:VEVENT");
+
+        assertThat(events).extracting(Event::getParticipation).containsExactly(EventParticipation.ACCEPTED, EventParticipation.NEEDS_ACTION);
+    }
+
+    @Test
+    public void malformedLinesAndUnterminatedEventsAreSkipped() {
+        var events = read("this line has no value separator",
+                "BEGIN:VEVENT",
+                "UID:valid",
+                "DTSTART:20260115T140000Z",
+                "garbage without colon",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:unterminated",
+                "DTSTART:20260115T140000Z");
+
+        assertThat(events).extracting(Event::getIcalUid).containsExactly("valid");
+    }
+
+    @Test
+    public void eventWithoutStartIsRejected() {
+        var parsedFeed = parse("BEGIN:VEVENT",
+                "UID:no-start",
+                "SUMMARY:No start",
+                "END:VEVENT");
+
+        assertThatThrownBy(() -> parsedFeed.stream("", TARGET_ZONE, null, icalUid -> {}).collect(Collectors.toList()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("missing a start date");
+    }
+
+    @Test
+    public void contentIsHashedWhileReading() throws Exception {
+        var content = toIcs("BEGIN:VEVENT", "UID:hashed", "DTSTART:20260115T140000Z", "SUMMARY:Café", "END:VEVENT");
+
+        var parsedFeed = IcalReader.parse(FEED_URL, new ByteArrayInputStream(content));
+
+        assertThat(parsedFeed.getContentHash()).isEqualTo(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(parsedFeed.getContentLength()).isEqualTo(content.length);
+        assertThat(parsedFeed.getEventCount()).isEqualTo(1);
+    }
+
+    private static List<Event> read(String... lines) {
+        return parse(lines).stream("", TARGET_ZONE, null, icalUid -> {}).collect(Collectors.toList());
+    }
+
+    private static ParsedIcalFeed parse(String... lines) {
+        return IcalReader.parse(FEED_URL, new ByteArrayInputStream(toIcs(lines)));
+    }
+
+    private static byte[] toIcs(String... lines) {
+        var content = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join("\r\n", lines) + "\r\nEND:VCALENDAR\r\n";
+
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
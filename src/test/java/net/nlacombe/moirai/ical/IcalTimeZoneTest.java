@@ -0,0 +1,120 @@
+package net.nlacombe.moirai.ical;
+
+import net.nlacombe.moirai.domain.Event;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IcalTimeZoneTest {
+
+    private static final ZoneId TARGET_ZONE = ZoneId.of("America/Montreal");
+
+    @Test
+    public void windowsZoneNamesAreResolved() {
+        var events = read(getEvent("windows", "DTSTART;TZID=\"W. Europe Standard Time\":20260715T090000"));
+
+        assertThat(events.get(0).getStart().toInstant()).isEqualTo(Instant.parse("2026-07-15T07:00:00Z"));
+    }
+
+    @Test
+    public void everyWindowsZoneNameMapsToAKnownZone() throws Exception {
+        var windowsZoneIds = new Properties();
+
+        try (var inputStream = getClass().getResourceAsStream("/windows-zones.properties")) {
+            windowsZoneIds.load(inputStream);
+        }
+
+        assertThat(windowsZoneIds).isNotEmpty();
+
+        for (var windowsZoneName : windowsZoneIds.stringPropertyNames())
+            assertThat(IcalTimeZone.resolve(windowsZoneName)).as(windowsZoneName).isEqualTo(ZoneId.of(windowsZoneIds.getProperty(windowsZoneName)));
+    }
+
+    @Test
+    public void pathPrefixedZoneIdsAreResolved() {
+        var events = read(getEvent("mozilla", "DTSTART;TZID=/mozilla.org/20050126_1/Asia/Tokyo:20260115T090000"));
+
+        assertThat(events.get(0).getStart().toInstant()).isEqualTo(Instant.parse("2026-01-15T00:00:00Z"));
+    }
+
+    @Test
+    public void vtimezoneLocationIsUsedForCustomTzid() {
+        var events = read("BEGIN:VTIMEZONE",
+                "TZID:Office time",
+                "X-LIC-LOCATION:Australia/Sydney",
+                "END:VTIMEZONE",
+                getEvent("location", "DTSTART;TZID=Office time:20260115T090000"));
+
+        assertThat(events.get(0).getStart().toInstant()).isEqualTo(Instant.parse("2026-01-14T22:00:00Z"));
+    }
+
+    @Test
+    public void vtimezoneObservancesAreMatchedToAZone() {
+        var events = read("BEGIN:VTIMEZONE",
+                "TZID:Custom Central Europe",
+                "BEGIN:STANDARD",
+                "DTSTART:16010101T030000",
+                "TZOFFSETFROM:+0200",
+                "TZOFFSETTO:+0100",
+                "RRULE:FREQ=YEARLY;BYDAY=-1SU;BYMONTH=10",
+                "END:STANDARD",
+                "BEGIN:DAYLIGHT",
+                "DTSTART:16010101T020000",
+                "TZOFFSETFROM:+0100",
+                "TZOFFSETTO:+0200",
+                "RRULE:FREQ=YEARLY;BYDAY=-1SU;BYMONTH=3",
+                "END:DAYLIGHT",
+                "END:VTIMEZONE",
+                getEvent("weekly", "DTSTART;TZID=Custom Central Europe:20260115T090000",
+                        "RRULE:FREQ=WEEKLY",
+                        "EXDATE;TZID=Custom Central Europe:20260122T090000"));
+
+        var series = events.get(0);
+
+        assertThat(series.getStart().toInstant()).isEqualTo(Instant.parse("2026-01-15T08:00:00Z"));
+        assertThat(series.getTimeZone().getRules().getOffset(Instant.parse("2026-07-15T12:00:00Z")).getTotalSeconds()).isEqualTo(7200);
+        assertThat(series.getRecurrence()).containsExactly("RRULE:FREQ=WEEKLY", "EXDATE;TZID=" + series.getTimeZone().getId() + ":20260122T090000");
+    }
+
+    @Test
+    public void fixedOffsetVtimezoneIsResolved() {
+        var events = read("BEGIN:VTIMEZONE",
+                "TZID:India",
+                "BEGIN:STANDARD",
+                "DTSTART:16010101T000000",
+                "TZOFFSETFROM:+0530",
+                "TZOFFSETTO:+0530",
+                "END:STANDARD",
+                "END:VTIMEZONE",
+                getEvent("fixed", "DTSTART;TZID=India:20260115T090000"));
+
+        assertThat(events.get(0).getStart().toInstant()).isEqualTo(Instant.parse("2026-01-15T03:30:00Z"));
+    }
+
+    @Test
+    public void unknownTzidFallsBackToTargetZone() {
+        var events = read(getEvent("unknown", "DTSTART;TZID=Nowhere Standard Time:20260115T090000"));
+
+        assertThat(events.get(0).getStart().toLocalDateTime().toString()).isEqualTo("2026-01-15T09:00");
+        assertThat(events.get(0).getStart().getZone()).isEqualTo(TARGET_ZONE);
+    }
+
+    private static String getEvent(String uid, String... properties) {
+        return "BEGIN:VEVENT\r\nUID:" + uid + "\r\n" + String.join("\r\n", properties) + "\r\nSUMMARY:" + uid + "\r\nEND:VEVENT";
+    }
+
+    private static List<Event> read(String... lines) {
+        var content = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join("\r\n", lines) + "\r\nEND:VCALENDAR\r\n";
+        var inputStream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+
+        return IcalReader.parse("https://example.com/calendar.ics", inputStream).stream("", TARGET_ZONE, null, icalUid -> {}).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,82 @@
+package net.nlacombe.moirai.ical;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParsedFeedCacheTest {
+
+    @Test
+    public void leastRecentlyUsedFeedsAreEvictedToStayUnderMaxBytes() {
+        var feedA = getFeed("https://example.com/a.ics", 10);
+        var feedB = getFeed("https://example.com/b.ics", 10);
+        var feedC = getFeed("https://example.com/c.ics", 10);
+        var cache = new ParsedFeedCache(new SimpleMeterRegistry(), 300, feedA.getParsedFeed().getEstimatedSize() * 2L + 10);
+
+        cache.get(feedA);
+        cache.get(feedB);
+        cache.get(withoutContent(feedA));
+        cache.get(feedC);
+
+        assertThat(cache.contains(feedA)).isTrue();
+        assertThat(cache.contains(feedB)).isFalse();
+        assertThat(cache.contains(feedC)).isTrue();
+    }
+
+    @Test
+    public void feedLargerThanMaxBytesIsNotCached() {
+        var feed = getFeed("https://example.com/large.ics", 100);
+        var cache = new ParsedFeedCache(new SimpleMeterRegistry(), 300, feed.getParsedFeed().getEstimatedSize() - 1);
+
+        assertThat(cache.get(feed)).isSameAs(feed.getParsedFeed());
+        assertThat(cache.contains(feed)).isFalse();
+        assertThat(cache.get(withoutContent(feed))).isNull();
+    }
+
+    @Test
+    public void cacheIsChargedWithTheParsedSize() {
+        var feed = getFeed("https://example.com/a.ics", 100);
+        var cache = new ParsedFeedCache(new SimpleMeterRegistry(), 300, feed.getParsedFeed().getContentLength());
+
+        assertThat(feed.getParsedFeed().getEstimatedSize()).isGreaterThan(feed.getParsedFeed().getContentLength());
+
+        cache.get(feed);
+
+        assertThat(cache.contains(feed)).isFalse();
+    }
+
+    @Test
+    public void sameContentIsServedFromTheCache() {
+        var feed = getFeed("https://example.com/a.ics", 10);
+        var refetchedFeed = getFeed("https://example.com/a.ics", 10);
+        var cache = new ParsedFeedCache(new SimpleMeterRegistry(), 300, 1024 * 1024);
+
+        var parsedFeed = cache.get(feed);
+
+        assertThat(cache.get(refetchedFeed)).isSameAs(parsedFeed);
+        assertThat(cache.get(withoutContent(feed))).isSameAs(parsedFeed);
+    }
+
+    private static IcalFeed withoutContent(IcalFeed feed) {
+        return new IcalFeed(feed.getUrl(), false, null, feed.getValidators());
+    }
+
+    private static IcalFeed getFeed(String url, int eventCount) {
+        var ics = new StringBuilder("BEGIN:VCALENDAR\r\n");
+
+        for (var i = 0; i < eventCount; i++)
+            ics.append("BEGIN:VEVENT\r\nUID:event-").append(i).append("\r\nDTSTART:20260115T140000Z\r\nEND:VEVENT\r\n");
+
+        ics.append("END:VCALENDAR\r\n");
+
+        var parsedFeed = IcalReader.parse(url, new ByteArrayInputStream(ics.toString().getBytes(StandardCharsets.UTF_8)));
+        var validators = new FeedValidators(null, null, parsedFeed.getContentHash(), Instant.now());
+
+        return new IcalFeed(url, true, parsedFeed, validators);
+    }
+}
@@ -0,0 +1,86 @@
+package net.nlacombe.moirai.subscription;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class FileSubscriptionStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void savedSubscriptionsAreReloadedFromTheFile() throws Exception {
+        var file = temporaryFolder.getRoot().toPath().resolve("store/subscriptions.json").toString();
+        var store = new FileSubscriptionStore(new ObjectMapper(), file);
+
+        store.save(getSubscription("subscription-1", "refresh-token-1"));
+        store.save(getSubscription("subscription-2", "refresh-token-2"));
+        store.delete("subscription-1");
+
+        var reloadedStore = new FileSubscriptionStore(new ObjectMapper(), file);
+
+        assertThat(reloadedStore.findAll()).hasSize(1);
+
+        var subscription = reloadedStore.find("subscription-2");
+        assertThat(subscription.getSourceCalendarIcalUrls()).containsExactly("https://example.com/a.ics", "https://example.com/b.ics");
+        assertThat(subscription.getGoogleUserRefreshToken()).isEqualTo("refresh-token-2");
+        assertThat(subscription.getTargetCalendarName()).isEqualTo("Target");
+        assertThat(subscription.getSyncIntervalSeconds()).isEqualTo(600L);
+    }
+
+    @Test
+    public void storeFileIsOnlyReadableByItsOwner() throws Exception {
+        var directory = temporaryFolder.getRoot().toPath().resolve("store");
+        var file = directory.resolve("subscriptions.json");
+        assumeTrue(file.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        new FileSubscriptionStore(new ObjectMapper(), file.toString()).save(getSubscription("subscription-1", "refresh-token-1"));
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file))).isEqualTo("rw-------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(directory))).isEqualTo("rwx------");
+    }
+
+    @Test
+    public void existingStoreFilePermissionsAreRestrictedOnLoad() throws Exception {
+        var file = temporaryFolder.getRoot().toPath().resolve("subscriptions.json");
+        assumeTrue(file.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        Files.writeString(file, "[]");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+
+        new FileSubscriptionStore(new ObjectMapper(), file.toString());
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file))).isEqualTo("rw-------");
+    }
+
+    @Test
+    public void subscriptionsAreKeptInMemoryWhenNoStoreFileIsSet() {
+        var store = new FileSubscriptionStore(new ObjectMapper(), " ");
+
+        store.save(getSubscription("subscription-1", "refresh-token-1"));
+
+        assertThat(store.find("subscription-1").getGoogleUserRefreshToken()).isEqualTo("refresh-token-1");
+        assertThat(new FileSubscriptionStore(new ObjectMapper(), " ").findAll()).isEmpty();
+    }
+
+    private static Subscription getSubscription(String subscriptionId, String refreshToken) {
+        var subscription = new Subscription();
+        subscription.setSubscriptionId(subscriptionId);
+        subscription.setSourceCalendarIcalUrls(List.of("https://example.com/a.ics", "https://example.com/b.ics"));
+        subscription.setGoogleUserAccessToken("access-token");
+        subscription.setGoogleUserRefreshToken(refreshToken);
+        subscription.setTargetCalendarName("Target");
+        subscription.setSyncIntervalSeconds(600L);
+
+        return subscription;
+    }
+}
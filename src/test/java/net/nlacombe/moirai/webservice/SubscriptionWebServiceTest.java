@@ -0,0 +1,118 @@
+package net.nlacombe.moirai.webservice;
+
+import net.nlacombe.moirai.subscription.Subscription;
+import net.nlacombe.moirai.subscription.SubscriptionScheduler;
+import net.nlacombe.moirai.subscription.SubscriptionStore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(SubscriptionWebService.class)
+public class SubscriptionWebServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SubscriptionStore subscriptionStore;
+
+    @MockBean
+    private SubscriptionScheduler subscriptionScheduler;
+
+    @Test
+    public void createdSubscriptionIsSavedWithoutReturningTokens() throws Exception {
+        mockMvc.perform(post("/api/v1/subscriptions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sourceCalendarIcalUrl\":\"https://example.com/a.ics\",\"googleUserAccessToken\":\"access-token\"," +
+                        "\"googleUserRefreshToken\":\"refresh-token\",\"targetCalendarName\":\"Target\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.subscriptionId").isNotEmpty())
+                .andExpect(jsonPath("$.googleUserAccessToken").doesNotExist())
+                .andExpect(jsonPath("$.googleUserRefreshToken").doesNotExist());
+
+        var subscription = ArgumentCaptor.forClass(Subscription.class);
+        verify(subscriptionStore).save(subscription.capture());
+        assertThat(subscription.getValue().getGoogleUserRefreshToken()).isEqualTo("refresh-token");
+    }
+
+    @Test
+    public void subscriptionWithoutRefreshTokenIsRejected() throws Exception {
+        mockMvc.perform(post("/api/v1/subscriptions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sourceCalendarIcalUrl\":\"https://example.com/a.ics\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(subscriptionStore, never()).save(any());
+    }
+
+    @Test
+    public void ownerCanDeleteSubscription() throws Exception {
+        when(subscriptionStore.find("subscription-1")).thenReturn(getSubscription());
+
+        mockMvc.perform(delete("/api/v1/subscriptions/subscription-1")
+                .header(SubscriptionWebService.REFRESH_TOKEN_HEADER, "refresh-token"))
+                .andExpect(status().isNoContent());
+
+        verify(subscriptionStore).delete("subscription-1");
+        verify(subscriptionScheduler).unschedule("subscription-1");
+    }
+
+    @Test
+    public void deleteWithAnotherRefreshTokenIsRejected() throws Exception {
+        when(subscriptionStore.find("subscription-1")).thenReturn(getSubscription());
+
+        mockMvc.perform(delete("/api/v1/subscriptions/subscription-1")
+                .header(SubscriptionWebService.REFRESH_TOKEN_HEADER, "other-refresh-token"))
+                .andExpect(status().isNotFound());
+
+        verify(subscriptionStore, never()).delete(anyString());
+    }
+
+    @Test
+    public void deleteWithoutRefreshTokenIsRejected() throws Exception {
+        when(subscriptionStore.find("subscription-1")).thenReturn(getSubscription());
+
+        mockMvc.perform(delete("/api/v1/subscriptions/subscription-1"))
+                .andExpect(status().isBadRequest());
+
+        verify(subscriptionStore, never()).delete(anyString());
+    }
+
+    @Test
+    public void subscriptionsCannotBeListedAnonymously() throws Exception {
+        mockMvc.perform(get("/api/v1/subscriptions"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/v1/subscriptions/subscription-1"))
+                .andExpect(status().isForbidden());
+    }
+
+    private static Subscription getSubscription() {
+        var subscription = new Subscription();
+        subscription.setSubscriptionId("subscription-1");
+        subscription.setSourceCalendarIcalUrl("https://example.com/a.ics");
+        subscription.setGoogleUserRefreshToken("refresh-token");
+        subscription.setTargetCalendarName("Target");
+
+        return subscription;
+    }
+}